@@ -0,0 +1,103 @@
+package com.dy.minichat.global.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Snowflake 발급 경합 비교 (1 / 8 / 64 스레드)
+    - cas*          : 현재 구현 (AtomicLong CAS)
+    - synchronized* : 이전 구현 (synchronized nextId)
+    - block*        : 64개 블록 예약 후 소비 (배치 INSERT 경로)
+
+    실행: ./gradlew jmh -Pjmh.includes=SnowflakeBenchmark
+    주의: ms당 4096개 한도에 닿으면 두 구현 모두 시계에 묶이므로, 처리량보다 스레드 수 증가에 따른 지연 변화를 비교
+*/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SnowflakeBenchmark {
+
+    private Snowflake cas;
+    private SynchronizedSnowflake legacy;
+
+    @Setup
+    public void setUp() {
+        cas = new Snowflake(1L);
+        legacy = new SynchronizedSnowflake(1L);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long cas1() {
+        return cas.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long cas8() {
+        return cas.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long cas64() {
+        return cas.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long synchronized1() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long synchronized8() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long synchronized64() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    @OperationsPerInvocation(64)
+    public long block64() {
+        IdBlock block = cas.nextBlock(64);
+        long last = 0L;
+        while (block.hasNext()) {
+            last = block.next();
+        }
+        return last;
+    }
+
+    // 비교용 이전 구현 (시퀀스 소진 시 대기 추가 - 중복 ID 없이 동일 조건 비교)
+    static final class SynchronizedSnowflake {
+        private static final long EPOCH = 1735689600000L;
+        private final long nodeId;
+        private long lastTimestamp = -1L;
+        private long sequence = 0L;
+
+        SynchronizedSnowflake(long nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        synchronized long nextId() {
+            long now = System.currentTimeMillis() - EPOCH;
+            if (now == lastTimestamp) {
+                sequence = (sequence + 1) & 4095;
+                if (sequence == 0) {
+                    while (now <= lastTimestamp) now = System.currentTimeMillis() - EPOCH;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = now;
+            return now << 22 | (nodeId << 12) | sequence;
+        }
+    }
+}
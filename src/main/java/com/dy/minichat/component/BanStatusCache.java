@@ -0,0 +1,294 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.entity.UserStatus;
+import com.dy.minichat.global.cache.NearCache;
+import com.dy.minichat.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+/*
+    유저 밴 상태 니어 캐시
+
+    기존: WebSocket 프레임마다(RateLimitAspect) Redis hasKey + MySQL findById (쓰기 트랜잭션)
+    변경:
+    1) 밴 필터(bloom): 밴(임시/영구)된 적 있는 유저 ID의 상위 집합
+       - 필터에 없으면 확실히 밴 아님 -> I/O 없이 통과 (대부분의 유저)
+       - 기동 시 + 주기적으로 MySQL(BAN) + Redis 임시 밴 인덱스에서 재구성 (만료된 임시 밴 정리, 유실된 이벤트 보정)
+       - 재구성 실패 시 필터를 쓰지 않고 아래 캐시/조회로 처리
+    2) 필터에 걸린 유저만 (userId -> 밴 여부) 캐시, 짧은 TTL 후 원본 재조회
+    3) 밴 적용(applyStrike/banUser) 시 커밋 이후 pub/sub으로 모든 노드의 필터에 추가 + 캐시 무효화
+
+    [수정]
+    - 재구성은 전용 스레드(banFilterScheduler)에서 - 노드 하트비트/Snowflake 임대 갱신(registryScheduler)을 막지 않도록
+    - 임시 밴 유저는 ZSET 인덱스(ban:temp:index, score = 만료 시각)에 따로 기록 -> 전체 키 공간 SCAN 없음
+      (인덱스가 없을 때만 기존 ban:state:user:* 키를 1회 SCAN으로 백필)
+    - 캐시 미스 조회 중 밴이 적용되면 조회 결과를 캐시하지 않음 (NearCache.beginLoad/completeLoad)
+*/
+@Slf4j
+@Component
+public class BanStatusCache implements MessageListener {
+
+    public static final String BAN_CHANNEL = "ban:events";
+    public static final String TEMP_BAN_INDEX_KEY = "ban:temp:index";
+    private static final String TEMP_BAN_KEY_PATTERN = "ban:state:user:*";
+    private static final int TEMP_BAN_KEY_PREFIX_LENGTH = "ban:state:user:".length();
+    // 백필 시 만료 시각을 모르므로 가장 긴 임시 밴(7일) 기준으로 기록 (필터에 조금 더 남을 뿐 판정은 원본 조회)
+    private static final long BACKFILL_TTL_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int INDEX_PAGE_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ScheduledExecutorService banFilterScheduler;
+    private final long ttlMs;
+    private final long rebuildIntervalMs;
+    private final int expectedBans;
+
+    // K: userId, V: 밴 여부 (필터에 걸린 유저만)
+    private final NearCache<Long, Boolean> nearCache;
+
+    // null이면 필터 미사용 (아직 구성 전이거나 재구성 실패)
+    private volatile BanFilter filter;
+    // 재구성 중인 필터 - 재구성 도중 들어온 밴 이벤트도 반영되도록
+    private volatile BanFilter building;
+    // 인덱스 백필은 노드당 1회만 (재구성 스레드에서만 접근)
+    private boolean backfilled = false;
+
+    public BanStatusCache(
+            UserRepository userRepository,
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Qualifier("banFilterScheduler") ScheduledExecutorService banFilterScheduler,
+            @Value("${ban.cache.ttl-ms:5000}") long ttlMs,
+            @Value("${ban.cache.max-entries:100000}") int maxEntries,
+            @Value("${ban.filter.rebuild-interval-ms:60000}") long rebuildIntervalMs,
+            @Value("${ban.filter.expected-bans:100000}") int expectedBans
+    ) {
+        this.userRepository = userRepository;
+        this.redisTemplateForString = redisTemplateForString;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.banFilterScheduler = banFilterScheduler;
+        this.ttlMs = ttlMs;
+        this.nearCache = new NearCache<>(maxEntries);
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.expectedBans = expectedBans;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 구독 먼저 -> 재구성 도중의 이벤트도 놓치지 않음
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(BAN_CHANNEL));
+        // 첫 재구성 전까지는 필터 없이 캐시/원본 조회로 처리
+        banFilterScheduler.scheduleWithFixedDelay(this::rebuild, 0L, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param loader 캐시 미스 시 원본(Redis 임시 밴 + MySQL 영구 밴) 조회
+     */
+    public boolean isBanned(long userId, LongPredicate loader) {
+        BanFilter current = filter;
+        if (current != null && !current.mightContain(userId)) {
+            return false;
+        }
+
+        Boolean cached = nearCache.get(userId);
+        if (cached != null) return cached;
+
+        NearCache.Loading<Boolean> loading = nearCache.beginLoad(userId);
+        boolean banned = loader.test(userId);
+        nearCache.completeLoad(userId, loading, banned, System.currentTimeMillis() + ttlMs);
+        return banned;
+    }
+
+    /**
+     * 임시 밴(Redis) 적용 시 호출 - 인덱스 기록 후 markBanned
+     * 임시 밴 키와 마찬가지로 인덱스도 트랜잭션과 무관하게 즉시 기록
+     */
+    public void markTempBanned(long userId, long durationMs) {
+        try {
+            redisTemplateForString.opsForZSet()
+                    .add(TEMP_BAN_INDEX_KEY, String.valueOf(userId), System.currentTimeMillis() + durationMs);
+        } catch (Exception e) {
+            // 인덱스 누락 시 다음 재구성 필터에서 빠질 수 있음 -> 그때부터는 밴 상태를 놓칠 수 있으므로 에러로 남김
+            log.error("임시 밴 인덱스 기록 실패. user: {}", userId, e);
+        }
+        markBanned(userId);
+    }
+
+    /**
+     * 밴 적용 시 호출 - 트랜잭션 안이면 커밋 이후 전파 (커밋 전 상태가 다시 캐시되지 않도록)
+     */
+    public void markBanned(long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(userId);
+            }
+        });
+    }
+
+    private void publish(long userId) {
+        apply(userId);
+        try {
+            redisTemplateForString.convertAndSend(BAN_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 전파 실패 시 다른 노드는 다음 필터 재구성 때 반영
+            log.error("밴 이벤트 발행 실패. user: {}", userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            apply(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("잘못된 밴 이벤트: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void apply(long userId) {
+        BanFilter current = filter;
+        if (current != null) current.put(userId);
+        BanFilter next = building;
+        if (next != null) next.put(userId);
+        nearCache.invalidate(userId);
+    }
+
+    void rebuild() {
+        BanFilter next = new BanFilter(expectedBans);
+        building = next;
+        try {
+            int count = 0;
+            for (Long userId : userRepository.findIdsByUserStatus(UserStatus.BAN)) {
+                next.put(userId);
+                count++;
+            }
+
+            if (!backfilled) {
+                backfillTempBanIndex();
+                backfilled = true;
+            }
+
+            // 만료된 임시 밴 정리 후 남은 유저만 추가
+            long now = System.currentTimeMillis();
+            ZSetOperations<String, String> index = redisTemplateForString.opsForZSet();
+            index.removeRangeByScore(TEMP_BAN_INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+            for (long offset = 0; ; offset += INDEX_PAGE_SIZE) {
+                Set<String> page = index.rangeByScore(TEMP_BAN_INDEX_KEY, now, Double.POSITIVE_INFINITY, offset, INDEX_PAGE_SIZE);
+                if (page == null || page.isEmpty()) break;
+                for (String member : page) {
+                    try {
+                        next.put(Long.parseLong(member));
+                        count++;
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+                if (page.size() < INDEX_PAGE_SIZE) break;
+            }
+
+            filter = next;
+            log.debug("[밴 필터] 재구성 완료: {}명", count);
+        } catch (Exception e) {
+            // 오래된 필터로 밴 유저를 놓치지 않도록 필터를 끄고 캐시/원본 조회로 처리
+            filter = null;
+            log.error("[밴 필터] 재구성 실패 - 다음 재구성까지 필터 미사용", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    // 인덱스 도입 이전에 걸린 임시 밴 - 인덱스 키가 없을 때만 1회 SCAN
+    private void backfillTempBanIndex() {
+        if (Boolean.TRUE.equals(redisTemplateForString.hasKey(TEMP_BAN_INDEX_KEY))) return;
+
+        long expiresAt = System.currentTimeMillis() + BACKFILL_TTL_MS;
+        int count = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(TEMP_BAN_KEY_PATTERN).count(1000).build();
+        try (Cursor<String> cursor = redisTemplateForString.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                try {
+                    long userId = Long.parseLong(key.substring(TEMP_BAN_KEY_PREFIX_LENGTH));
+                    // 그 사이 markTempBanned로 기록된 정확한 만료 시각은 덮어쓰지 않음
+                    redisTemplateForString.opsForZSet().addIfAbsent(TEMP_BAN_INDEX_KEY, String.valueOf(userId), expiresAt);
+                    count++;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        log.info("[밴 필터] 임시 밴 인덱스 백필: {}명", count);
+    }
+
+    /*
+        bloom 필터 (오탐 약 1%, 미탐 없음) - 추가만 가능, 제거는 재구성으로
+        비트 배열을 AtomicLongArray로 두어 락 없이 동시 추가/조회
+    */
+    static final class BanFilter {
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray bits;
+        private final long size;
+
+        BanFilter(int expectedInsertions) {
+            // m = n * ln(1/p) / (ln 2)^2, p = 0.01 -> 약 9.6 bit/원소
+            long m = Math.max(64L, (long) Math.ceil(Math.max(1, expectedInsertions) * 9.6));
+            this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+            this.size = (long) bits.length() * 64;
+        }
+
+        void put(long userId) {
+            long h1 = mix(userId);
+            long h2 = mix(h1) | 1L;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                while (((word = bits.get(index)) & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+                    // CAS 경합 시 재시도
+                }
+            }
+        }
+
+        boolean mightContain(long userId) {
+            long h1 = mix(userId);
+            long h2 = mix(h1) | 1L;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        // splitmix64 finalizer - 연속된 Snowflake ID도 비트가 고르게 퍼지도록
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.dy.minichat.component;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    채팅방 방송 대상 분류 결과
+    - localSessions   : 이 노드에 연결된 세션 (송신 큐로 바로 전송)
+    - remoteRecipients: K: 대상 서버 ID, V: 해당 서버에 연결된 수신자 목록 (gRPC 벌크 릴레이)
+    - offlineUserIds  : 어느 서버에도 연결되지 않은 수신자 (미전달 저장 + FCM)
+*/
+@Getter
+public class BroadcastRoute {
+    private final List<WebSocketSession> localSessions = new ArrayList<>();
+    private final Map<String, List<Long>> remoteRecipients = new HashMap<>();
+    private final List<Long> offlineUserIds = new ArrayList<>();
+
+    public void addLocal(WebSocketSession session) {
+        localSessions.add(session);
+    }
+
+    public void addRemote(String serverId, Long userId) {
+        remoteRecipients.computeIfAbsent(serverId, k -> new ArrayList<>()).add(userId);
+    }
+
+    public void addOffline(Long userId) {
+        offlineUserIds.add(userId);
+    }
+
+    public boolean isEmpty() {
+        return localSessions.isEmpty() && remoteRecipients.isEmpty() && offlineUserIds.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.dy.minichat.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+    채팅방 멤버를 로컬 / 원격(서버별) / 오프라인으로 분류
+    - 멤버 목록은 ChatMembershipIndex(노드 로컬)에서 가져오므로 메시지당 SMEMBERS 없음
+    - 로컬 세션이 없는 멤버의 접속 서버는 UserPresenceResolver로 일괄 조회 (방송당 MGET 최대 1회)
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BroadcastRouter {
+
+    private final ChatMembershipIndex chatMembershipIndex;
+    private final WebSocketSessionManager sessionManager;
+    private final UserPresenceResolver userPresenceResolver;
+    private final String serverIdentifier;
+
+    public BroadcastRoute route(long chatId) {
+        BroadcastRoute route = new BroadcastRoute();
+        List<Long> nonLocalUserIds = new ArrayList<>();
+
+        for (long userId : chatMembershipIndex.getMembers(chatId)) {
+            WebSocketSession receiverSession = sessionManager.getSession(userId);
+
+            // Case 1: 같은 서버 (로컬 전송 대상)
+            if (receiverSession != null && receiverSession.isOpen()) {
+                route.addLocal(receiverSession);
+            }
+            // Case 2: 다른 서버 또는 오프라인 -> 모아서 한 번에 조회
+            else {
+                nonLocalUserIds.add(userId);
+            }
+        }
+
+        Map<Long, String> serverIds = userPresenceResolver.resolve(nonLocalUserIds);
+        for (Long userId : nonLocalUserIds) {
+            String targetServerId = serverIds.get(userId);
+
+            // Case 2-A: 다른 서버 (gRPC 벌크 릴레이 대상)
+            if (targetServerId != null && !targetServerId.equals(serverIdentifier)) {
+                route.addRemote(targetServerId, userId);
+            }
+            // Case 2-B: 오프라인 (FCM 대상)
+            else {
+                route.addOffline(userId);
+            }
+        }
+        return route;
+    }
+}
@@ -0,0 +1,112 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.global.cache.NearCache;
+import com.dy.minichat.repository.UserChatRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+    (chatId, userId) 채팅방 참여 여부 니어 캐시
+
+    읽음 갱신처럼 QPS가 높은 경로에서 참여 여부 확인을 위해 매번 MySQL을 조회하지 않도록 사용
+    - 미스일 때만 EXISTS 쿼리 1회, 참여/비참여 모두 캐시 (비참여는 짧은 TTL)
+    - 초대/퇴장 커밋 후 pub/sub으로 모든 노드의 캐시 무효화
+    - [수정] 조회 전에 표식을 넣고 표식이 그대로일 때만 반영 (NearCache.beginLoad/completeLoad)
+      -> 조회 도중 초대/퇴장이 커밋되어 무효화되면 이전 값을 다시 캐시하지 않음
+*/
+@Slf4j
+@Component
+public class ChatMemberCache implements MessageListener {
+
+    // ChatMembershipIndex(chat:membership:events)와 payload 형식이 다르므로 채널을 분리
+    public static final String MEMBER_CACHE_CHANNEL = "chat:member-cache:events";
+
+    private final UserChatRepository userChatRepository;
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+
+    // K: "chatId:userId", V: 참여 여부
+    private final NearCache<String, Boolean> nearCache;
+
+    public ChatMemberCache(
+            UserChatRepository userChatRepository,
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${chat.member-cache.ttl-ms:60000}") long ttlMs,
+            @Value("${chat.member-cache.negative-ttl-ms:5000}") long negativeTtlMs,
+            @Value("${chat.member-cache.max-entries:200000}") int maxEntries
+    ) {
+        this.userChatRepository = userChatRepository;
+        this.redisTemplateForString = redisTemplateForString;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.nearCache = new NearCache<>(maxEntries);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(MEMBER_CACHE_CHANNEL));
+    }
+
+    public boolean isMember(long chatId, long userId) {
+        String key = key(chatId, userId);
+        Boolean cached = nearCache.get(key);
+        if (cached != null) return cached;
+
+        NearCache.Loading<Boolean> loading = nearCache.beginLoad(key);
+        boolean member = userChatRepository.existsByUserIdAndChatIdAndIsDeletedFalse(userId, chatId);
+        nearCache.completeLoad(key, loading, member, System.currentTimeMillis() + (member ? ttlMs : negativeTtlMs));
+        return member;
+    }
+
+    /**
+     * 초대/퇴장 시 호출 - 트랜잭션 안이면 커밋 이후 무효화 (커밋 전 값이 다시 캐시되지 않도록)
+     */
+    public void markChanged(long chatId, long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(chatId, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(chatId, userId);
+            }
+        });
+    }
+
+    private void invalidate(long chatId, long userId) {
+        String key = key(chatId, userId);
+        nearCache.invalidate(key);
+        try {
+            redisTemplateForString.convertAndSend(MEMBER_CACHE_CHANNEL, key);
+        } catch (Exception e) {
+            // 전파 실패 시 다른 노드는 TTL 만료 후 갱신
+            log.error("채팅방 참여 변경 이벤트 발행 실패. chat: {}, user: {}", chatId, userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        nearCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private static String key(long chatId, long userId) {
+        return chatId + ":" + userId;
+    }
+}
@@ -0,0 +1,218 @@
+package com.dy.minichat.component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    노드 로컬 채팅방 멤버 인덱스 (chatId -> 정렬된 long[] userId)
+
+    기존: 메시지마다 SMEMBERS chatId:{id}:userId + String -> Long 박싱 + HashSet 생성
+    변경: 최초 조회 시에만 SMEMBERS로 적재, 이후 입장/퇴장/연결 종료 이벤트(pub/sub)로 갱신
+        -> 방송 시 Redis 왕복 없이 primitive 배열 그대로 순회
+
+    - 멤버 변경(입장/퇴장)은 메시지 방송보다 훨씬 드물기 때문에 copy-on-write 배열 사용
+    - pub/sub 메시지 유실에 대비해 RESYNC_INTERVAL_MS 마다 Redis 원본으로 재적재
+    - [수정] SMEMBERS는 맵 락(compute) 밖에서 수행 -> 같은 해시 bin의 다른 방 조회/이벤트 반영이 Redis 왕복을 기다리지 않음
+      같은 방 적재는 동시에 1회만 (나머지는 이전 스냅샷 사용, 최초 적재면 완료 대기)
+      적재 도중 입장/퇴장 이벤트가 들어오면(버전 변경) 읽은 값이 이벤트 이전일 수 있으므로 만료 상태로 반영 -> 다음 조회 때 재적재
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatMembershipIndex implements MessageListener {
+
+    public static final String MEMBERSHIP_CHANNEL = "chat:membership:events";
+    private static final String CHAT_USERS_KEY = "chatId:%d:userId";
+    private static final long RESYNC_INTERVAL_MS = 30_000;
+
+    @Qualifier("redisTemplateForString")
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final Map<Long, RoomMembers> rooms = new ConcurrentHashMap<>();
+    // K: chatId, V: 진행 중인 적재
+    private final Map<Long, CompletableFuture<long[]>> loads = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(MEMBERSHIP_CHANNEL));
+    }
+
+    /**
+     * 채팅방 멤버 목록 (정렬된 배열, 호출 측에서 수정 금지)
+     */
+    public long[] getMembers(long chatId) {
+        long now = System.currentTimeMillis();
+        RoomMembers room = rooms.get(chatId);
+
+        if (room != null && !room.isStale(now)) return room.members;
+
+        CompletableFuture<long[]> mine = new CompletableFuture<>();
+        CompletableFuture<long[]> inFlight = loads.putIfAbsent(chatId, mine);
+        if (inFlight != null) {
+            // 다른 스레드가 적재 중 - 이전 스냅샷이 있으면 그대로 사용
+            if (room != null && room.initialized) return room.members;
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw (e.getCause() instanceof RuntimeException cause) ? cause : e;
+            }
+        }
+
+        try {
+            long[] members = load(chatId, now);
+            mine.complete(members);
+            return members;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(chatId, mine);
+        }
+    }
+
+    /**
+     * 입장 반영 (Redis Set 갱신 이후 호출) - 로컬 즉시 반영 + 다른 노드에 전파
+     */
+    public void join(long chatId, long userId) {
+        applyJoin(chatId, userId);
+        publish("J", chatId, userId);
+    }
+
+    /**
+     * 퇴장/연결 종료 반영 (Redis Set 갱신 이후 호출)
+     */
+    public void leave(long chatId, long userId) {
+        applyLeave(chatId, userId);
+        publish("L", chatId, userId);
+    }
+
+    // pub/sub 수신: "J:{chatId}:{userId}" 또는 "L:{chatId}:{userId}"
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            String[] parts = body.split(":");
+            long chatId = Long.parseLong(parts[1]);
+            long userId = Long.parseLong(parts[2]);
+
+            if ("J".equals(parts[0])) applyJoin(chatId, userId);
+            else if ("L".equals(parts[0])) applyLeave(chatId, userId);
+
+        } catch (RuntimeException e) {
+            log.warn("멤버십 이벤트 파싱 실패: {}", body, e);
+        }
+    }
+
+    // 로컬에 적재된 방만 갱신 (없는 방은 다음 조회 시 Redis에서 적재)
+    private void applyJoin(long chatId, long userId) {
+        rooms.computeIfPresent(chatId, (id, room) -> room.with(userId));
+    }
+
+    private void applyLeave(long chatId, long userId) {
+        rooms.computeIfPresent(chatId, (id, room) -> room.without(userId));
+    }
+
+    private void publish(String type, long chatId, long userId) {
+        try {
+            redisTemplateForString.convertAndSend(MEMBERSHIP_CHANNEL, type + ":" + chatId + ":" + userId);
+        } catch (Exception e) {
+            // 전파 실패 시 다른 노드는 RESYNC_INTERVAL_MS 이내에 재적재로 맞춰짐
+            log.error("멤버십 이벤트 발행 실패. chat: {}, user: {}", chatId, userId, e);
+        }
+    }
+
+    private long[] load(long chatId, long now) {
+        // 적재 전 버전 기록 (처음 보는 방은 자리표시를 넣어 적재 중 이벤트도 버전에 반영되게 함)
+        long versionBefore = rooms.computeIfAbsent(chatId, id -> RoomMembers.placeholder()).version;
+
+        long[] members = fetch(chatId);
+
+        rooms.compute(chatId, (id, cur) -> {
+            if (cur == null || cur.version == versionBefore) return new RoomMembers(members, now, versionBefore, true);
+            // 적재 도중 이벤트 반영됨 -> 읽은 값이 이벤트 이전일 수 있으므로 만료 상태로 두고 다음 조회 때 재적재
+            return new RoomMembers(members, 0L, cur.version, true);
+        });
+        return members;
+    }
+
+    private long[] fetch(long chatId) {
+        Set<String> userIdsStr = redisTemplateForString.opsForSet().members(String.format(CHAT_USERS_KEY, chatId));
+
+        if (userIdsStr == null || userIdsStr.isEmpty())
+            return new long[0];
+
+        long[] members = new long[userIdsStr.size()];
+        int i = 0;
+        for (String userIdStr : userIdsStr) {
+            members[i++] = Long.parseLong(userIdStr);
+        }
+        Arrays.sort(members);
+        return members;
+    }
+
+    /*
+        불변 스냅샷 - 변경 시 새 배열을 만들어 교체 (읽기 측은 락 없이 순회)
+        version: 입장/퇴장 이벤트마다 증가 (멤버 변화가 없어도 증가 - 적재 중 이벤트 감지용)
+    */
+    private static final class RoomMembers {
+        private final long[] members;
+        private final long loadedAt;
+        private final long version;
+        // false: 최초 적재 전 자리표시 (멤버 정보 없음)
+        private final boolean initialized;
+
+        private RoomMembers(long[] members, long loadedAt, long version, boolean initialized) {
+            this.members = members;
+            this.loadedAt = loadedAt;
+            this.version = version;
+            this.initialized = initialized;
+        }
+
+        private static RoomMembers placeholder() {
+            return new RoomMembers(new long[0], 0L, 0L, false);
+        }
+
+        private boolean isStale(long now) {
+            return now - loadedAt > RESYNC_INTERVAL_MS;
+        }
+
+        private RoomMembers with(long userId) {
+            int idx = Arrays.binarySearch(members, userId);
+            if (idx >= 0) return new RoomMembers(members, loadedAt, version + 1, initialized);
+
+            int insertAt = -(idx + 1);
+            long[] next = new long[members.length + 1];
+            System.arraycopy(members, 0, next, 0, insertAt);
+            next[insertAt] = userId;
+            System.arraycopy(members, insertAt, next, insertAt + 1, members.length - insertAt);
+            return new RoomMembers(next, loadedAt, version + 1, initialized);
+        }
+
+        private RoomMembers without(long userId) {
+            int idx = Arrays.binarySearch(members, userId);
+            if (idx < 0) return new RoomMembers(members, loadedAt, version + 1, initialized);
+
+            long[] next = new long[members.length - 1];
+            System.arraycopy(members, 0, next, 0, idx);
+            System.arraycopy(members, idx + 1, next, idx, members.length - idx - 1);
+            return new RoomMembers(next, loadedAt, version + 1, initialized);
+        }
+    }
+}
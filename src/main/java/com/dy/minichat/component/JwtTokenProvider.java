@@ -1,13 +1,19 @@
 package com.dy.minichat.component;
 
+import com.dy.minichat.global.cache.NearCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 
 @Slf4j
@@ -18,13 +24,46 @@ public class JwtTokenProvider {
     private final long ACCESS_TOKEN_EXP = 1000L * 60 * 60;        // 1시간
     private final long REFRESH_TOKEN_EXP = 1000L * 60 * 60 * 24 * 7; // 7일
 
+    /*
+        [신규] 검증된 토큰의 Claims 캐시
+        - 재배포 직후 재연결 폭주 / REST 요청마다 같은 토큰을 다시 파싱 + 서명 검증하지 않도록
+        - 키: 토큰의 SHA-256 (원문 토큰을 키로 보관하지 않음)
+        - 만료: min(토큰 exp, 캐시 TTL) - 만료된 토큰은 캐시에서도 통과하지 않음
+        - 검증 실패한 토큰은 캐시하지 않음 (잘못된 토큰으로 캐시를 채울 수 없도록)
+        - [수정] 가득 차도 전체를 비우지 않음 (NearCache - 일부만 제거)
+        - [수정] 호출마다 Claims 복사본 반환 (캐시된 인스턴스를 호출 측이 수정할 수 없도록)
+    */
+    private final long cacheTtlMs;
+    private final NearCache<String, Claims> claimsCache;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     // session vs JWT(MSA)
 
+    // 테스트용 - 캐시 설정은 기본값
+    JwtTokenProvider(String secretKey) {
+        this(secretKey, 5 * 60 * 1000L, 100_000);
+    }
+
     // application.yml에서 secret 값 가져오기
-    public JwtTokenProvider(@Value("${jwt.secret}") String secretKey) {
+    @Autowired
+    public JwtTokenProvider(
+            @Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.cache.ttl-ms:300000}") long cacheTtlMs,
+            @Value("${jwt.cache.max-entries:100000}") int cacheMaxEntries
+    ) {
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.cacheTtlMs = cacheTtlMs;
+        this.claimsCache = new NearCache<>(cacheMaxEntries);
     }
+
     /**
      * 사용자 ID를 기반으로 Access Token 생성
      */
@@ -56,12 +95,41 @@ public class JwtTokenProvider {
     }
 
 
+    /**
+     * [신규] 토큰을 1회 파싱/검증하고 Claims 반환 (검증 결과는 캐시)
+     * @throws JwtException 서명 오류, 형식 오류, 만료 등 (만료 시 ExpiredJwtException)
+     * @throws IllegalArgumentException 빈 토큰
+     */
+    public Claims parseClaims(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT 토큰이 비어 있습니다.");
+        }
+
+        String cacheKey = hash(token);
+        Claims cached = claimsCache.get(cacheKey);
+        if (cached != null) return Jwts.claims(cached);
+
+        // [참고] 만료 시 여기서 예외 발생
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+
+        long expiresAt = System.currentTimeMillis() + cacheTtlMs;
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        claimsCache.put(cacheKey, claims, expiresAt);
+        return Jwts.claims(claims);
+    }
+
     /**
      * 토큰의 유효성을 검증합니다.
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
@@ -83,12 +151,16 @@ public class JwtTokenProvider {
      * (만료된 토큰의 경우 ExpiredJwtException이 발생합니다.)
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token) // [참고] 만료 시 여기서 예외 발생
-                .getBody();
+        return Long.parseLong(parseClaims(token).getSubject());
+    }
+
+    // 테스트용
+    int cachedClaimsCount() {
+        return claimsCache.size();
+    }
 
-        return Long.parseLong(claims.getSubject());
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
     }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package com.dy.minichat.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/*
+    채팅방별 읽음 위치 저장소 + 인덱스 (증분 유지)
+
+    - lastRead:chat:{chatId}            HASH, userId -> lastReadId (현재 읽음 위치의 원본, DB 동기화 후에도 유지)
+    - lastRead:dirty:{shard}            SET, member = "chatId:userId" (DB 미반영 변경분, shard = chatId % DIRTY_SHARDS)
+    - lastRead:rank:chat:{chatId}       ZSET, score 0 / member = "0 패딩 19자리 lastReadId:userId" (사전순 = ID순)
+    - lastRead:rank:ready:chat:{chatId} 초기 구축 완료 마커
+
+    읽음 갱신 Lua 스크립트가 읽음 위치와 인덱스를 함께 갱신하므로,
+    메시지 페이지의 안 읽은 수는 참여자 전체 조회 없이 ZLEXCOUNT + ZRANGEBYLEX 범위 조회 1회로 계산
+
+    ZSET score(double)를 쓰지 않는 이유: Snowflake ID가 2^53을 넘어 가까운 ID끼리 구분이 안 됨
+    [수정] 유저별 String 키 -> 채팅방당 HASH (키 수 = 채팅방 수), dirty set은 샤드로 나눠 DB 동기화 시 SCAN 없이 SPOP + HMGET
+*/
+@Slf4j
+@Component
+public class LastReadIndex {
+
+    // 운영 중 변경 금지 (기존 샤드에 남은 dirty member가 동기화되지 않음)
+    public static final int DIRTY_SHARDS = 16;
+
+    private static final String LAST_READ_KEY = "lastRead:chat:%d";
+    private static final String DIRTY_SET_KEY = "lastRead:dirty:%d";
+    private static final String RANK_KEY = "lastRead:rank:chat:%d";
+    private static final String READY_KEY = "lastRead:rank:ready:chat:%d";
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisScript<Long> lastReadUpdateScript;
+    private final RedisScript<Long> lastReadRankBuildScript;
+    private final RedisScript<Long> lastReadRankRemoveScript;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> lastReadRankScanScript;
+
+    @SuppressWarnings("rawtypes")
+    public LastReadIndex(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            @Qualifier("lastReadUpdateScript") RedisScript<Long> lastReadUpdateScript,
+            @Qualifier("lastReadRankBuildScript") RedisScript<Long> lastReadRankBuildScript,
+            @Qualifier("lastReadRankRemoveScript") RedisScript<Long> lastReadRankRemoveScript,
+            @Qualifier("lastReadRankScanScript") RedisScript<List> lastReadRankScanScript
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.lastReadUpdateScript = lastReadUpdateScript;
+        this.lastReadRankBuildScript = lastReadRankBuildScript;
+        this.lastReadRankRemoveScript = lastReadRankRemoveScript;
+        this.lastReadRankScanScript = lastReadRankScanScript;
+    }
+
+    /**
+     * 읽음 위치 갱신 (기존보다 큰 ID일 때만)
+     * @return 갱신되었으면 true
+     */
+    public boolean update(long chatId, long userId, long lastMessageId) {
+        Long result = redisTemplateForString.execute(
+                lastReadUpdateScript,
+                List.of(
+                        String.format(LAST_READ_KEY, chatId),
+                        String.format(DIRTY_SET_KEY, shardOf(chatId)),
+                        String.format(RANK_KEY, chatId)
+                ),
+                String.valueOf(lastMessageId), String.valueOf(userId), String.valueOf(chatId)
+        );
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 퇴장 시 읽음 위치/인덱스에서 제거 (남아 있으면 "읽은 사람"으로 계속 집계됨)
+     */
+    public void remove(long chatId, long userId) {
+        try {
+            redisTemplateForString.execute(
+                    lastReadRankRemoveScript,
+                    List.of(String.format(LAST_READ_KEY, chatId), String.format(RANK_KEY, chatId)),
+                    String.valueOf(userId)
+            );
+        } catch (Exception e) {
+            log.error("[읽음 인덱스] 제거 실패. chat: {}, user: {}", chatId, userId, e);
+        }
+    }
+
+    /**
+     * 인덱스 초기 구축 (이미 구축된 방이면 무시)
+     * @param lastReads K: userId, V: lastReadMessageId (읽은 기록이 있는 참여자만)
+     */
+    public void build(long chatId, Map<Long, Long> lastReads) {
+        List<String> args = new ArrayList<>(lastReads.size() * 2);
+        lastReads.forEach((userId, lastReadId) -> {
+            args.add(String.valueOf(userId));
+            args.add(String.valueOf(lastReadId));
+        });
+        redisTemplateForString.execute(
+                lastReadRankBuildScript,
+                List.of(String.format(LAST_READ_KEY, chatId), String.format(RANK_KEY, chatId), String.format(READY_KEY, chatId)),
+                args.toArray()
+        );
+    }
+
+    /**
+     * 채팅방의 Redis 읽음 위치 전체 (HGETALL 1회)
+     * @return K: userId, V: lastReadMessageId
+     */
+    public Map<Long, Long> getAll(long chatId) {
+        Map<Object, Object> entries = redisTemplateForString.opsForHash().entries(String.format(LAST_READ_KEY, chatId));
+        Map<Long, Long> result = new HashMap<>(entries.size() * 2);
+        entries.forEach((userId, lastReadId) ->
+                result.put(Long.parseLong(userId.toString()), Long.parseLong(lastReadId.toString()))
+        );
+        return result;
+    }
+
+    /**
+     * DB 미반영 변경분을 샤드에서 꺼내 현재 값과 함께 반환 (SPOP 1회 + 채팅방별 HMGET 파이프라인 1회)
+     * 반환 목록에 없는 member(퇴장 등으로 값이 사라진 경우)는 버려짐
+     */
+    public List<DirtyLastRead> popDirty(int shard, int count) {
+        List<String> members = redisTemplateForString.opsForSet().pop(String.format(DIRTY_SET_KEY, shard), count);
+        if (members == null || members.isEmpty()) return List.of();
+
+        // K: chatId, V: 해당 방에서 바뀐 userId (HMGET 인자 순서 유지)
+        Map<Long, List<Long>> usersByChat = new LinkedHashMap<>();
+        for (String member : members) {
+            int sep = member.indexOf(':');
+            if (sep < 0) {
+                log.warn("[읽음 동기화] 잘못된 dirty member: {}", member);
+                continue;
+            }
+            try {
+                usersByChat.computeIfAbsent(Long.parseLong(member.substring(0, sep)), k -> new ArrayList<>())
+                        .add(Long.parseLong(member.substring(sep + 1)));
+            } catch (NumberFormatException e) {
+                log.warn("[읽음 동기화] 잘못된 dirty member: {}", member);
+            }
+        }
+        if (usersByChat.isEmpty()) return List.of();
+
+        List<Object> replies = redisTemplateForString.executePipelined((RedisCallback<Object>) connection -> {
+            usersByChat.forEach((chatId, userIds) -> {
+                byte[][] fields = new byte[userIds.size()][];
+                for (int i = 0; i < userIds.size(); i++) {
+                    fields[i] = bytes(String.valueOf(userIds.get(i)));
+                }
+                connection.hashCommands().hMGet(bytes(String.format(LAST_READ_KEY, chatId)), fields);
+            });
+            return null;
+        });
+
+        List<DirtyLastRead> result = new ArrayList<>(members.size());
+        int index = 0;
+        for (Map.Entry<Long, List<Long>> entry : usersByChat.entrySet()) {
+            List<?> values = (List<?>) replies.get(index++);
+            List<Long> userIds = entry.getValue();
+            for (int i = 0; i < userIds.size(); i++) {
+                Object value = (values == null) ? null : values.get(i);
+                if (value == null) continue;
+                result.add(new DirtyLastRead(entry.getKey(), userIds.get(i), Long.parseLong(value.toString())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 샤드의 DB 미반영 변경분 수 (SCARD)
+     */
+    public long dirtyBacklog(int shard) {
+        Long size = redisTemplateForString.opsForSet().size(String.format(DIRTY_SET_KEY, shard));
+        return size == null ? 0L : size;
+    }
+
+    /**
+     * DB 반영 실패 시 dirty 표시 복구 (다음 동기화에서 재시도)
+     */
+    public void markDirty(Collection<DirtyLastRead> reads) {
+        Map<Integer, List<String>> membersByShard = new HashMap<>();
+        for (DirtyLastRead read : reads) {
+            membersByShard.computeIfAbsent(shardOf(read.getChatId()), k -> new ArrayList<>()).add(read.member());
+        }
+        membersByShard.forEach((shard, members) ->
+                redisTemplateForString.opsForSet().add(String.format(DIRTY_SET_KEY, shard), members.toArray(String[]::new))
+        );
+    }
+
+    /**
+     * 메시지 ID 구간 [minId, maxId]의 안 읽은 수 계산용 스냅샷
+     * @return 인덱스가 아직 없으면 null
+     */
+    public Snapshot scan(long chatId, long minId, long maxId) {
+        List<?> result = redisTemplateForString.execute(
+                lastReadRankScanScript,
+                List.of(String.format(RANK_KEY, chatId), String.format(READY_KEY, chatId)),
+                pad(minId), pad(maxId)
+        );
+        if (result == null || result.isEmpty()) return null;
+
+        int readers = Integer.parseInt(result.get(0).toString());
+        int readBelowMin = Integer.parseInt(result.get(1).toString());
+        // ZRANGEBYLEX 결과는 이미 ID 오름차순
+        long[] inRange = new long[result.size() - 2];
+        for (int i = 2; i < result.size(); i++) {
+            String member = result.get(i).toString();
+            inRange[i - 2] = Long.parseLong(member.substring(0, member.indexOf(':')));
+        }
+        return new Snapshot(readers, readBelowMin, inRange);
+    }
+
+    private static int shardOf(long chatId) {
+        return (int) Math.floorMod(chatId, (long) DIRTY_SHARDS);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String pad(long id) {
+        String value = Long.toString(id);
+        return "0".repeat(Math.max(0, 19 - value.length())) + value;
+    }
+
+    /*
+        unread(messageId) = 참여자 수 - lastReadId >= messageId 인 참여자 수
+                          = (참여자 수 - readers) + readBelowMin + (구간 내 lastReadId < messageId 개수)
+    */
+    public static final class Snapshot {
+        private final int readers;
+        private final int readBelowMin;
+        private final long[] inRangeSorted;
+
+        private Snapshot(int readers, int readBelowMin, long[] inRangeSorted) {
+            this.readers = readers;
+            this.readBelowMin = readBelowMin;
+            this.inRangeSorted = inRangeSorted;
+        }
+
+        public int unreadCount(long participants, long messageId) {
+            int lo = 0, hi = inRangeSorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (inRangeSorted[mid] < messageId) lo = mid + 1;
+                else hi = mid;
+            }
+            long unread = (participants - readers) + readBelowMin + lo;
+            return (int) Math.max(0, unread);
+        }
+    }
+
+    // DB에 반영할 읽음 위치 1건
+    public static final class DirtyLastRead {
+        private final long chatId;
+        private final long userId;
+        private final long lastReadMessageId;
+
+        public DirtyLastRead(long chatId, long userId, long lastReadMessageId) {
+            this.chatId = chatId;
+            this.userId = userId;
+            this.lastReadMessageId = lastReadMessageId;
+        }
+
+        public long getChatId() { return chatId; }
+        public long getUserId() { return userId; }
+        public long getLastReadMessageId() { return lastReadMessageId; }
+
+        private String member() {
+            return chatId + ":" + userId;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.event.PeerRemovedEvent;
+import com.dy.minichat.grpc.client.PeerEndpoint;
+import com.dy.minichat.property.GrpcServerProperties;
+import com.dy.minichat.property.NodeRegistryProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Redis 기반 노드 레지스트리 (정적 grpc.server.addresses 주소록 대체)
+
+    등록
+    - node:{serverId}  = "host:port" (TTL, 하트비트로 갱신) / nodes:registry Set에 serverId 추가
+    - 기동 시 UP, 정상 종료 시 DOWN 이벤트를 nodes:events 채널로 발행
+
+    조회
+    - 각 노드는 파싱이 끝난 피어 테이블(serverId -> PeerEndpoint)을 로컬에 유지
+    - 이벤트 수신 시 즉시 반영 + 하트비트마다 전체 재동기화 (비정상 종료로 DOWN이 없던 노드는 TTL 만료 후 제거)
+    - grpc.server.addresses가 설정돼 있으면 초기 시드로 사용 (레지스트리 등록 정보가 우선)
+    - [신규] 테이블에서 빠진 주소는 PeerRemovedEvent로 알림 (연결/배처/스트림 정리)
+
+    -> 노드 추가 시 설정 변경 불필요, 릴레이 경로에서는 Map 조회 1회 (문자열 파싱 없음)
+*/
+@Slf4j
+@Component
+public class NodeRegistry implements MessageListener {
+
+    public static final String NODE_EVENTS_CHANNEL = "nodes:events";
+    private static final String NODE_KEY_PREFIX = "node:";
+    private static final String NODE_SET_KEY = "nodes:registry";
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ScheduledExecutorService registryScheduler;
+    private final NodeRegistryProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String serverIdentifier;
+    private final String advertisedAddress;
+
+    // 정적 설정 주소록 (시드) - 파싱은 기동 시 1회
+    private final Map<String, PeerEndpoint> seeds = new HashMap<>();
+
+    // 피어 테이블 - 통째로 교체 (copy-on-write), 읽기는 락 없음
+    private volatile Map<String, PeerEndpoint> peers = Map.of();
+
+    // [신규] 하트비트가 살아 있는 노드 ID (정적 시드 제외, 자기 자신 포함) - 작업 샤드 배정용
+    private volatile Set<String> liveServerIds = Set.of();
+
+    public NodeRegistry(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Qualifier("registryScheduler") ScheduledExecutorService registryScheduler,
+            NodeRegistryProperties properties,
+            ApplicationEventPublisher eventPublisher,
+            GrpcServerProperties grpcServerProperties,
+            String serverIdentifier,
+            @Value("${grpc.server.port:9090}") int grpcServerPort
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.registryScheduler = registryScheduler;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.serverIdentifier = serverIdentifier;
+
+        String host = properties.getAdvertiseHost() != null ? properties.getAdvertiseHost() : localHostAddress();
+        int port = properties.getAdvertisePort() > 0 ? properties.getAdvertisePort() : grpcServerPort;
+        this.advertisedAddress = host + ":" + port;
+
+        if (grpcServerProperties.getAddresses() != null) {
+            grpcServerProperties.getAddresses().forEach((serverId, address) -> {
+                PeerEndpoint endpoint = PeerEndpoint.parse(serverId, address);
+                if (endpoint != null) seeds.put(serverId, endpoint);
+                else log.error("grpc.server.addresses 주소 형식 오류: {} -> {}", serverId, address);
+            });
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(NODE_EVENTS_CHANNEL));
+
+        heartbeat();
+        publish("UP:" + serverIdentifier + ":" + advertisedAddress);
+        refresh();
+
+        long interval = properties.getHeartbeatIntervalMs();
+        registryScheduler.scheduleWithFixedDelay(() -> {
+            heartbeat();
+            refresh();
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        log.info("[노드 등록] {} -> {}", serverIdentifier, advertisedAddress);
+    }
+
+    /**
+     * 대상 노드의 gRPC 주소 조회 (릴레이 경로)
+     * @return 알 수 없는 노드면 null
+     */
+    public PeerEndpoint resolve(String serverId) {
+        return peers.get(serverId);
+    }
+
+    /**
+     * 현재 살아 있는 노드 ID 목록 (자기 자신 포함)
+     */
+    public Set<String> liveServerIds() {
+        return liveServerIds;
+    }
+
+    public String getServerIdentifier() {
+        return serverIdentifier;
+    }
+
+    @PreDestroy
+    public void deregister() {
+        try {
+            redisTemplateForString.delete(NODE_KEY_PREFIX + serverIdentifier);
+            redisTemplateForString.opsForSet().remove(NODE_SET_KEY, serverIdentifier);
+            publish("DOWN:" + serverIdentifier);
+        } catch (Exception e) {
+            log.error("[노드 해제] 레지스트리 정리 실패. server: {}", serverIdentifier, e);
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            redisTemplateForString.opsForValue().set(
+                    NODE_KEY_PREFIX + serverIdentifier,
+                    advertisedAddress,
+                    Duration.ofMillis(properties.getTtlMs())
+            );
+            redisTemplateForString.opsForSet().add(NODE_SET_KEY, serverIdentifier);
+        } catch (Exception e) {
+            log.error("[노드 하트비트] 실패. server: {}", serverIdentifier, e);
+        }
+    }
+
+    /**
+     * 전체 재동기화 - SMEMBERS 1회 + MGET 1회
+     * 키가 만료된(하트비트가 끊긴) 노드는 테이블과 Set에서 제거
+     */
+    private void refresh() {
+        try {
+            Set<String> serverIds = redisTemplateForString.opsForSet().members(NODE_SET_KEY);
+            Map<String, PeerEndpoint> next = new HashMap<>(seeds);
+            Set<String> live = new HashSet<>();
+            live.add(serverIdentifier);
+
+            if (serverIds != null && !serverIds.isEmpty()) {
+                List<String> ids = new ArrayList<>(serverIds);
+                List<String> keys = new ArrayList<>(ids.size());
+                for (String id : ids) {
+                    keys.add(NODE_KEY_PREFIX + id);
+                }
+                List<String> addresses = redisTemplateForString.opsForValue().multiGet(keys);
+
+                for (int i = 0; i < ids.size(); i++) {
+                    String address = (addresses == null) ? null : addresses.get(i);
+                    if (address == null) {
+                        redisTemplateForString.opsForSet().remove(NODE_SET_KEY, ids.get(i));
+                        next.remove(ids.get(i));
+                        continue;
+                    }
+                    PeerEndpoint endpoint = PeerEndpoint.parse(ids.get(i), address);
+                    if (endpoint != null) next.put(ids.get(i), endpoint);
+                    live.add(ids.get(i));
+                }
+            }
+
+            Set<String> removed;
+            synchronized (this) {
+                if (!next.equals(peers)) {
+                    log.info("[노드 레지스트리] 피어 테이블 갱신: {}", next.keySet());
+                }
+                removed = removedAddresses(peers, next);
+                peers = Map.copyOf(next);
+                liveServerIds = Set.copyOf(live);
+            }
+            publishRemoved(removed);
+        } catch (Exception e) {
+            // 실패 시 기존 테이블 유지
+            log.error("[노드 레지스트리] 재동기화 실패", e);
+        }
+    }
+
+    /*
+        이벤트 형식: "UP:{serverId}:{host}:{port}" / "DOWN:{serverId}"
+    */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":", 3);
+
+        Set<String> removed;
+        synchronized (this) {
+            Map<String, PeerEndpoint> next = new HashMap<>(peers);
+            Set<String> live = new HashSet<>(liveServerIds);
+            if (parts.length == 3 && "UP".equals(parts[0])) {
+                PeerEndpoint endpoint = PeerEndpoint.parse(parts[1], parts[2]);
+                if (endpoint == null) {
+                    log.warn("노드 이벤트 파싱 실패: {}", body);
+                    return;
+                }
+                next.put(parts[1], endpoint);
+                live.add(parts[1]);
+            } else if (parts.length == 2 && "DOWN".equals(parts[0])) {
+                // 정적 시드에 있는 노드는 재동기화 시 다시 채워짐
+                next.remove(parts[1]);
+                if (!parts[1].equals(serverIdentifier)) live.remove(parts[1]);
+            } else {
+                log.warn("노드 이벤트 파싱 실패: {}", body);
+                return;
+            }
+            removed = removedAddresses(peers, next);
+            peers = Map.copyOf(next);
+            liveServerIds = Set.copyOf(live);
+        }
+        log.info("[노드 레지스트리] 이벤트 반영: {}", body);
+        publishRemoved(removed);
+    }
+
+    // 이전 테이블에는 있었지만 새 테이블에서는 어느 노드도 쓰지 않는 주소 (주소만 바뀐 노드의 이전 주소 포함)
+    private static Set<String> removedAddresses(Map<String, PeerEndpoint> previous, Map<String, PeerEndpoint> next) {
+        Set<String> removed = new HashSet<>();
+        previous.values().forEach(endpoint -> removed.add(endpoint.getAddress()));
+        next.values().forEach(endpoint -> removed.remove(endpoint.getAddress()));
+        return removed;
+    }
+
+    // 락 밖에서 발행 (리스너가 채널 종료/미전달 우회를 수행)
+    private void publishRemoved(Set<String> removed) {
+        for (String address : removed) {
+            log.info("[노드 레지스트리] 피어 제거: {}", address);
+            try {
+                eventPublisher.publishEvent(new PeerRemovedEvent(address));
+            } catch (Exception e) {
+                log.error("[노드 레지스트리] 피어 제거 처리 실패: {}", address, e);
+            }
+        }
+    }
+
+    private void publish(String event) {
+        try {
+            redisTemplateForString.convertAndSend(NODE_EVENTS_CHANNEL, event);
+        } catch (Exception e) {
+            // 다른 노드는 다음 재동기화 때 반영
+            log.error("노드 이벤트 발행 실패: {}", event, e);
+        }
+    }
+
+    private static String localHostAddress() {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
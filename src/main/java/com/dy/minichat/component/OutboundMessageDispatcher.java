@@ -0,0 +1,142 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.component.SessionOutboundQueue.OutboundFrame;
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.property.WebSocketOutboundProperties;
+import com.dy.minichat.property.WebSocketOutboundProperties.OverflowPolicy;
+import com.dy.minichat.service.UndeliveredMessageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/*
+    모든 로컬 WebSocket 전송의 단일 진입점
+
+    기존: 수신자마다 customThreadPool에 session.sendMessage() 태스크를 던짐
+        -> 같은 세션에 동시 전송 발생 가능 (unsafe), 느린 클라이언트 하나가 풀 스레드를 붙잡음
+    변경: 세션별 bounded 큐에 적재만 하고 즉시 반환, 드레인은 세션당 스레드 하나만 수행
+        -> 팬아웃은 느린 소켓에 막히지 않고, 수신자별 순서 보장
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboundMessageDispatcher {
+
+    private final WebSocketOutboundProperties properties;
+    private final UndeliveredMessageService undeliveredMessageService;
+
+    @Qualifier("outboundSendExecutor")
+    private final Executor outboundSendExecutor;
+
+    @Qualifier("customThreadPool")
+    private final Executor customThreadPool;
+
+    // K: WebSocket session id, V: 해당 세션의 송신 큐
+    private final Map<String, SessionOutboundQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * 세션 송신 큐에 프레임을 적재하고 드레인을 예약합니다. (non-blocking)
+     * @param source 큐 초과 시 미전달 저장소로 우회할 원본 메시지 (없으면 null)
+     */
+    public void send(WebSocketSession session, TextMessage frame, TalkMessageDTO source) {
+        if (session == null || !session.isOpen()) return;
+
+        SessionOutboundQueue queue = queues.computeIfAbsent(
+                session.getId(), id -> new SessionOutboundQueue(session, properties.getCapacity())
+        );
+        OutboundFrame outbound = new OutboundFrame(frame, source);
+
+        if (!queue.offer(outbound)) {
+            if (!handleOverflow(queue, outbound)) return;
+        }
+        scheduleDrain(queue);
+    }
+
+    /**
+     * 연결 종료 시 호출 - 남은 프레임 폐기
+     */
+    public void unregister(WebSocketSession session) {
+        SessionOutboundQueue queue = queues.remove(session.getId());
+        if (queue != null) queue.clear();
+    }
+
+    // @return 드레인을 계속 진행해야 하면 true
+    private boolean handleOverflow(SessionOutboundQueue queue, OutboundFrame outbound) {
+        WebSocketSession session = queue.getSession();
+        OverflowPolicy policy = properties.getOverflowPolicy();
+
+        switch (policy) {
+            case DROP_OLDEST:
+                queue.replaceOldest(outbound);
+                log.warn("[송신 큐 초과] 가장 오래된 프레임 폐기. Session ID: {}", session.getId());
+                return true;
+
+            case CLOSE_SESSION:
+                log.warn("[송신 큐 초과] 느린 소비자 세션 종료. Session ID: {}, 적재량: {}", session.getId(), queue.size());
+                unregister(session);
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Slow consumer"));
+                } catch (IOException e) {
+                    log.warn("느린 소비자 세션 종료 중 에러 발생. Session ID: {}", session.getId(), e);
+                }
+                return false;
+
+            case DIVERT_UNDELIVERED:
+            default:
+                TalkMessageDTO source = outbound.getSource();
+                Object userIdObj = session.getAttributes().get("userId");
+                if (source == null || !(userIdObj instanceof Long)) {
+                    log.warn("[송신 큐 초과] 우회할 원본이 없어 프레임 폐기. Session ID: {}", session.getId());
+                    return false;
+                }
+                Long userId = (Long) userIdObj;
+                log.warn("[송신 큐 초과] 유저 {} 메시지를 미전달 저장소로 우회", userId);
+                customThreadPool.execute(() ->
+                        undeliveredMessageService.saveAndSendPush(source.getChatId(), userId, source)
+                );
+                return false;
+        }
+    }
+
+    private void scheduleDrain(SessionOutboundQueue queue) {
+        if (queue.tryMarkScheduled()) {
+            outboundSendExecutor.execute(() -> drain(queue));
+        }
+    }
+
+    private void drain(SessionOutboundQueue queue) {
+        WebSocketSession session = queue.getSession();
+        try {
+            int sent = 0;
+            OutboundFrame next;
+            while (sent < properties.getMaxFramesPerDrain() && (next = queue.poll()) != null) {
+                if (!session.isOpen()) {
+                    unregister(session);
+                    return;
+                }
+                try {
+                    session.sendMessage(next.getFrame());
+                } catch (IOException | IllegalStateException e) {
+                    log.error("로컬 전송 실패. Session ID: {}", session.getId(), e);
+                }
+                sent++;
+            }
+        } finally {
+            queue.unmarkScheduled();
+        }
+
+        // 플래그 해제 직전/직후에 적재된 프레임이 남아있으면 재예약 (다른 세션에게 스레드 양보)
+        if (!queue.isEmpty() && session.isOpen()) {
+            scheduleDrain(queue);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.dto.message.ReadReceiptDTO;
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.grpc.client.MessageRelayClient;
+import com.dy.minichat.grpc.client.PeerEndpoint;
+import com.dy.minichat.grpc.client.RelayEnvelope;
+import com.dy.minichat.property.ReadReceiptProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    읽음 확인(READ_ACK) 방송 합치기
+
+    기존: 읽음 갱신은 REST(PUT /chats/{chatId}/read)로만 가능, 다른 참여자에게 실시간 반영 없음
+    변경:
+    - WebSocket READ_ACK로 들어온 읽음 변경을 채팅방별로 모아둠 (같은 유저는 가장 큰 ID만 유지)
+    - flush 주기(기본 200ms)마다 채팅방당 READ_RECEIPT 프레임 1개로 방송
+      -> 스크롤 중 연속 ACK가 와도 방송은 방당 주기당 1회
+    - 오프라인 유저에게는 보내지 않음 (다음 메시지 조회 시 안 읽은 수로 반영됨), 릴레이 실패도 재시도하지 않음
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReadReceiptBroadcaster {
+
+    private final ReadReceiptProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final BroadcastRouter broadcastRouter;
+    private final OutboundMessageDispatcher outboundMessageDispatcher;
+    private final MessageRelayClient messageRelayClient;
+    private final NodeRegistry nodeRegistry;
+
+    @Qualifier("relayScheduler")
+    private final ScheduledExecutorService relayScheduler;
+
+    @Qualifier("customThreadPool")
+    private final Executor executor;
+
+    // K: chatId, V: (K: userId, V: lastReadMessageId) - 다음 flush에서 방송할 변경분
+    // [수정] 안쪽 맵은 pending.compute 안에서만 수정 -> flush의 pending.remove와 같은 bin 락으로 직렬화
+    //        (remove 이후에 들어온 변경은 새 맵에 쌓이므로 유실 없음)
+    private final Map<Long, Map<Long, Long>> pending = new ConcurrentHashMap<>();
+
+    // flush가 겹치지 않도록 (릴레이가 느려도 방별 프레임 순서 유지)
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void start() {
+        long interval = properties.getFlushIntervalMs();
+        relayScheduler.scheduleWithFixedDelay(this::scheduleFlush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 읽음 변경 적재 (non-blocking) - 실제 방송은 다음 flush에서
+     */
+    public void record(long chatId, long userId, long lastMessageId) {
+        pending.compute(chatId, (k, reads) -> {
+            if (reads == null) reads = new HashMap<>();
+            reads.merge(userId, lastMessageId, Math::max);
+            return reads;
+        });
+    }
+
+    // 스케줄러 스레드는 짧게 유지하고 방송은 작업 풀에서 수행
+    private void scheduleFlush() {
+        if (pending.isEmpty() || !flushing.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                flush();
+            } finally {
+                flushing.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flush() {
+        // K: 대상 서버 ID, V: 그 서버로 보낼 릴레이 목록 - 서버당 1회 호출
+        Map<String, List<RelayEnvelope>> relaysByServer = new HashMap<>();
+
+        for (Long chatId : new ArrayList<>(pending.keySet())) {
+            Map<Long, Long> reads = pending.remove(chatId);
+            if (reads == null || reads.isEmpty()) continue;
+
+            try {
+                broadcastToChatRoom(chatId, reads, relaysByServer);
+            } catch (Exception e) {
+                log.error("[읽음 확인] 방송 실패. chat: {}", chatId, e);
+            }
+        }
+
+        relaysByServer.forEach(this::relay);
+    }
+
+    private void broadcastToChatRoom(Long chatId, Map<Long, Long> reads, Map<String, List<RelayEnvelope>> relaysByServer)
+            throws JsonProcessingException {
+        BroadcastRoute route = broadcastRouter.route(chatId);
+        if (route.isEmpty()) return;
+
+        byte[] payload = objectMapper.writeValueAsBytes(ReadReceiptDTO.builder()
+                .type(TalkMessageDTO.MessageType.READ_RECEIPT)
+                .chatId(chatId)
+                .reads(reads)
+                .build());
+
+        // 모든 로컬 세션이 같은 TextMessage(버퍼)를 공유, 큐 초과 시 미전달 저장소로 우회하지 않음 (source = null)
+        TextMessage textMessage = new TextMessage(payload);
+        route.getLocalSessions().forEach(session -> outboundMessageDispatcher.send(session, textMessage, null));
+
+        if (route.getRemoteRecipients().isEmpty()) return;
+
+        // 릴레이 메타데이터용 (수신 노드는 payload를 그대로 전송)
+        TalkMessageDTO relayMessage = TalkMessageDTO.builder()
+                .senderId(0L)
+                .chatId(chatId)
+                .type(TalkMessageDTO.MessageType.READ_RECEIPT)
+                .content("")
+                .timestamp(Instant.now())
+                .build();
+        route.getRemoteRecipients().forEach((serverId, recipientIds) ->
+                relaysByServer.computeIfAbsent(serverId, k -> new ArrayList<>())
+                        .add(new RelayEnvelope(relayMessage, payload, recipientIds))
+        );
+    }
+
+    private void relay(String targetServerId, List<RelayEnvelope> envelopes) {
+        PeerEndpoint target = nodeRegistry.resolve(targetServerId);
+        if (target == null) {
+            log.warn("[읽음 확인] 대상 서버 '{}'의 주소를 찾을 수 없어 {}건 폐기", targetServerId, envelopes.size());
+            return;
+        }
+
+        try {
+            int relayed = messageRelayClient.relayAll(target, envelopes);
+            if (relayed < envelopes.size()) {
+                log.warn("[읽음 확인] 대상 서버 {}로 {}건 릴레이 불가, 폐기", targetServerId, envelopes.size() - relayed);
+            }
+        } catch (Exception e) {
+            log.error("[읽음 확인] gRPC 릴레이 실패. 대상 서버: {}", targetServerId, e);
+        }
+    }
+}
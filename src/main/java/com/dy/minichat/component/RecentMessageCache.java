@@ -0,0 +1,186 @@
+package com.dy.minichat.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    채팅방별 최근 메시지 캐시 (Redis ZSET, ID순)
+
+    - chat:{chatId}:recent 에 ID가 가장 큰 maxSize개만 유지 (member = zero-padded ID + "|" + JSON, 사전순 = ID순)
+    - 쓰기: 메시지 저장 경로(write-behind 컨슈머 / 동기 저장 / 시스템 메시지)에서 적재
+    - 읽기: 메시지 목록 API가 요청 범위를 캐시만으로 채울 수 있을 때 MySQL 대신 사용
+    - 캐시는 "가장 작은 캐시 ID 이후의 연속 구간"이므로 범위가 그 밖이면 MySQL로 폴백
+    [수정] 이 전제를 깨지 않도록
+    - 메시지는 ID 순서와 다르게 도착함 (노드별 시계, 동기 저장 폴백, 시스템 메시지)
+      -> 삽입 순서(LTRIM)가 아니라 ID순으로 잘라냄 (ZREMRANGEBYRANK), 현재 최소 ID보다 작은 메시지는 넣지 않음
+    - 적재 실패 시 해당 방의 캐시를 삭제 -> 다음 조회는 MySQL에서 읽고 다시 워밍 (빠진 메시지가 TTL 동안 남지 않도록)
+*/
+@Slf4j
+@Component
+public class RecentMessageCache {
+
+    private static final String KEY_FORMAT = "chat:%d:recent";
+    private static final int ID_WIDTH = 19;
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisScript<Long> recentMessagePushScript;
+    private final RedisScript<Long> recentMessageWarmScript;
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final long ttlMs;
+
+    public RecentMessageCache(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            @Qualifier("recentMessagePushScript") RedisScript<Long> recentMessagePushScript,
+            @Qualifier("recentMessageWarmScript") RedisScript<Long> recentMessageWarmScript,
+            ObjectMapper objectMapper,
+            @Value("${minichat.message.recent-cache.size:100}") int maxSize,
+            @Value("${minichat.message.recent-cache.ttl-ms:86400000}") long ttlMs
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.recentMessagePushScript = recentMessagePushScript;
+        this.recentMessageWarmScript = recentMessageWarmScript;
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * 새 메시지 적재, 방 단위 스크립트를 파이프라인 1회로
+     * 실패해도 저장 경로는 계속 진행 (캐시는 보조 수단) - 대신 해당 방들의 캐시를 삭제
+     */
+    public void push(Map<Long, List<RecentMessage>> messagesByChat) {
+        if (messagesByChat.isEmpty()) return;
+        byte[] script = recentMessagePushScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[] maxSizeArg = String.valueOf(maxSize).getBytes(StandardCharsets.UTF_8);
+        byte[] ttlArg = String.valueOf(ttlMs).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            redisTemplateForString.executePipelined((RedisCallback<Object>) connection -> {
+                messagesByChat.forEach((chatId, messages) -> {
+                    byte[][] keysAndArgs = new byte[messages.size() + 3][];
+                    keysAndArgs[0] = key(chatId).getBytes(StandardCharsets.UTF_8);
+                    keysAndArgs[1] = maxSizeArg;
+                    keysAndArgs[2] = ttlArg;
+                    for (int i = 0; i < messages.size(); i++) {
+                        keysAndArgs[i + 3] = member(messages.get(i)).getBytes(StandardCharsets.UTF_8);
+                    }
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, keysAndArgs);
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("[최근 메시지 캐시] 적재 실패, 캐시 삭제. chats: {}", messagesByChat.keySet(), e);
+            evict(messagesByChat.keySet());
+        }
+    }
+
+    public void push(long chatId, RecentMessage message) {
+        push(Map.of(chatId, List.of(message)));
+    }
+
+    /**
+     * 캐시가 비어 있을 때만 MySQL 조회 결과로 채움
+     */
+    public void warm(long chatId, List<RecentMessage> newestFirst) {
+        if (newestFirst.isEmpty()) return;
+        try {
+            List<String> args = new ArrayList<>(newestFirst.size() + 2);
+            args.add(String.valueOf(maxSize));
+            args.add(String.valueOf(ttlMs));
+            for (RecentMessage message : newestFirst) {
+                args.add(member(message));
+            }
+            redisTemplateForString.execute(recentMessageWarmScript, List.of(key(chatId)), args.toArray());
+        } catch (Exception e) {
+            log.error("[최근 메시지 캐시] 워밍 실패. chat: {}", chatId, e);
+        }
+    }
+
+    /**
+     * @return 최신 -> 과거 순, ID 중복 제거 (같은 메시지가 발신자 이름 유무만 다른 member로 두 번 들어갈 수 있음)
+     */
+    public List<RecentMessage> getNewestFirst(long chatId) {
+        Set<String> raw;
+        try {
+            raw = redisTemplateForString.opsForZSet().reverseRange(key(chatId), 0, -1);
+        } catch (Exception e) {
+            log.error("[최근 메시지 캐시] 조회 실패. chat: {}", chatId, e);
+            return List.of();
+        }
+        if (raw == null || raw.isEmpty()) return List.of();
+
+        // ZSET 역순 = ID 내림차순
+        Map<Long, RecentMessage> byId = new LinkedHashMap<>();
+        for (String member : raw) {
+            String json = member.substring(ID_WIDTH + 1);
+            try {
+                RecentMessage message = objectMapper.readValue(json, RecentMessage.class);
+                byId.putIfAbsent(message.getId(), message);
+            } catch (JsonProcessingException e) {
+                log.warn("[최근 메시지 캐시] 파싱 실패: {}", json);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private void evict(Collection<Long> chatIds) {
+        try {
+            redisTemplateForString.delete(chatIds.stream().map(this::key).toList());
+        } catch (Exception e) {
+            // 삭제도 실패하면 TTL 만료까지 캐시가 남음 - Redis 장애 상황이라 조회도 MySQL로 폴백됨
+            log.error("[최근 메시지 캐시] 삭제 실패. chats: {}", chatIds, e);
+        }
+    }
+
+    // 사전순 = ID순이 되도록 ID를 고정 폭으로
+    private String member(RecentMessage message) {
+        String id = Long.toString(message.getId());
+        return "0".repeat(Math.max(0, ID_WIDTH - id.length())) + id + "|" + toJson(message);
+    }
+
+    private String key(long chatId) {
+        return String.format(KEY_FORMAT, chatId);
+    }
+
+    private String toJson(RecentMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("최근 메시지 직렬화 실패", e);
+        }
+    }
+
+    // 메시지 목록 응답에 필요한 최소 필드 (senderName이 없으면 조회 시 채움)
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecentMessage {
+        private Long id;
+        private Long senderId;
+        private String senderName;
+        private String messageType;
+        private String content;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    세션 1개당 1개의 송신 큐 (bounded, single-writer)
+
+    WebSocketSession.sendMessage()는 동시 호출에 안전하지 않음
+    -> 적재(offer)는 여러 스레드가 해도 되지만, 실제 전송(drain)은 scheduled 플래그를 잡은 스레드 하나만 수행
+    -> 수신자별 메시지 순서 보장
+*/
+public class SessionOutboundQueue {
+
+    @Getter
+    private final WebSocketSession session;
+    private final int capacity;
+    private final ArrayDeque<OutboundFrame> buffer;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    public SessionOutboundQueue(WebSocketSession session, int capacity) {
+        this.session = session;
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    /**
+     * 프레임 적재. 큐가 가득 찼으면 false
+     */
+    public synchronized boolean offer(OutboundFrame frame) {
+        if (buffer.size() >= capacity) return false;
+        buffer.addLast(frame);
+        return true;
+    }
+
+    /**
+     * 가장 오래된 프레임을 밀어내고 새 프레임 적재 (DROP_OLDEST)
+     * @return 밀려난 프레임
+     */
+    public synchronized OutboundFrame replaceOldest(OutboundFrame frame) {
+        OutboundFrame dropped = buffer.pollFirst();
+        buffer.addLast(frame);
+        return dropped;
+    }
+
+    public synchronized OutboundFrame poll() {
+        return buffer.pollFirst();
+    }
+
+    public synchronized boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+
+    public synchronized int size() {
+        return buffer.size();
+    }
+
+    public synchronized void clear() {
+        buffer.clear();
+    }
+
+    // 드레인 권한 획득 (이미 다른 스레드가 드레인 중이면 false)
+    public boolean tryMarkScheduled() {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    public void unmarkScheduled() {
+        scheduled.set(false);
+    }
+
+    /**
+     * 큐에 쌓이는 단위: 실제 전송할 프레임 + (우회 저장용) 원본 메시지
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class OutboundFrame {
+        private final TextMessage frame;
+        private final TalkMessageDTO source; // 시스템 프레임 등 원본이 없으면 null
+    }
+}
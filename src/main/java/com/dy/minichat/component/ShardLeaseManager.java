@@ -0,0 +1,145 @@
+package com.dy.minichat.component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    주기 작업(유지보수 작업)의 노드 간 샤드 배정
+
+    기존: 모든 노드가 같은 작업을 같은 주기로 실행 -> 같은 dirty set/MySQL에 동시에 몰림
+    변경:
+    - 배정: 살아 있는 노드 목록(NodeRegistry)에 rendezvous 해싱 -> 샤드마다 선호 노드 1개
+            (노드 추가/제거 시 그 노드 몫의 샤드만 이동)
+    - 보장: 선호 노드만 Redis 임대(lease:{job}:{shard}, TTL)를 잡고 작업
+            노드 목록이 잠깐 어긋나도 임대를 가진 노드 1개만 실행, 이전 소유자는 선호가 바뀌면 즉시 반납
+            비정상 종료한 노드의 임대는 TTL 후 만료
+    - 임대 갱신은 TTL 절반마다 1회 (매 루프마다 Redis를 호출하지 않음)
+    단일 리더가 필요한 작업은 shard = 0 하나로 사용
+*/
+@Slf4j
+@Component
+public class ShardLeaseManager {
+
+    private static final String LEASE_KEY = "lease:%s:%d";
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisScript<Long> shardLeaseAcquireScript;
+    private final RedisScript<Long> shardLeaseReleaseScript;
+    private final NodeRegistry nodeRegistry;
+    private final long ttlMs;
+
+    // K: lease 키, V: 로컬에서 임대가 유효하다고 보는 시각 (이후에는 Redis로 갱신)
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+
+    public ShardLeaseManager(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            @Qualifier("shardLeaseAcquireScript") RedisScript<Long> shardLeaseAcquireScript,
+            @Qualifier("shardLeaseReleaseScript") RedisScript<Long> shardLeaseReleaseScript,
+            NodeRegistry nodeRegistry,
+            @Value("${cluster.lease.ttl-ms:10000}") long ttlMs
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.shardLeaseAcquireScript = shardLeaseAcquireScript;
+        this.shardLeaseReleaseScript = shardLeaseReleaseScript;
+        this.nodeRegistry = nodeRegistry;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * 이 노드가 지금 job의 shard를 처리해야 하는지 확인 (필요 시 임대 획득/갱신/반납)
+     */
+    public boolean owns(String job, int shard) {
+        String key = String.format(LEASE_KEY, job, shard);
+        String self = nodeRegistry.getServerIdentifier();
+
+        if (!self.equals(preferredOwner(job, shard, self))) {
+            if (heldUntil.remove(key) != null) release(key, self);
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Long until = heldUntil.get(key);
+        if (until != null && until > now) return true;
+
+        try {
+            Long result = redisTemplateForString.execute(
+                    shardLeaseAcquireScript, List.of(key), self, String.valueOf(ttlMs)
+            );
+            if (result != null && result == 1L) {
+                if (until == null) log.info("[작업 임대] 획득: {} -> {}", key, self);
+                heldUntil.put(key, now + ttlMs / 2);
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("[작업 임대] 획득/갱신 실패: {}", key, e);
+        }
+
+        // 다른 노드가 아직 임대 보유 중 (이전 소유자의 반납/만료 대기)
+        heldUntil.remove(key);
+        return false;
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        String self = nodeRegistry.getServerIdentifier();
+        for (String key : heldUntil.keySet()) {
+            release(key, self);
+        }
+        heldUntil.clear();
+    }
+
+    // rendezvous(HRW) 해싱 - (job, shard, node) 점수가 가장 높은 노드
+    private String preferredOwner(String job, int shard, String self) {
+        Set<String> nodes = nodeRegistry.liveServerIds();
+        if (nodes.isEmpty()) return self;
+
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long score = mix(hash(job + ":" + shard + ":" + node));
+            if (owner == null || score > best || (score == best && node.compareTo(owner) < 0)) {
+                best = score;
+                owner = node;
+            }
+        }
+        return owner;
+    }
+
+    private void release(String key, String self) {
+        try {
+            redisTemplateForString.execute(shardLeaseReleaseScript, List.of(key), self);
+            log.info("[작업 임대] 반납: {}", key);
+        } catch (Exception e) {
+            // 반납 실패 시 TTL 만료 후 새 소유자가 획득
+            log.error("[작업 임대] 반납 실패: {}", key, e);
+        }
+    }
+
+    // FNV-1a 64bit
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // splitmix64 finalizer - 비슷한 입력의 점수가 고르게 퍼지도록
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
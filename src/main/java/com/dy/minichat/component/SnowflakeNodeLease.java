@@ -0,0 +1,170 @@
+package com.dy.minichat.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Snowflake 노드 ID(10bit, 0 ~ 1023) 임대
+
+    기존: 모든 노드가 노드 ID 1 고정 -> 2대 이상 띄우면 ID 충돌 (쓰기 노드 1대로 제한)
+    변경:
+    - 기동 시 snowflake:node:{id} 키를 SET NX PX로 선점 (값 = 서버 ID)
+      탐색 시작점은 INCR 커서로 분산 -> 동시에 뜬 노드끼리 같은 후보를 두고 경합하지 않음
+    - TTL/3마다 하트비트로 갱신, 비정상 종료한 노드의 ID는 TTL 후 재사용 가능
+    - [수정] 발급 차단(fencing): 마지막 갱신 요청 시각 + TTL - (maxDrift + 여유)가 지나면 currentNodeId()가 예외
+      -> Redis 장애 등으로 갱신을 놓쳐 임대가 만료될 수 있는 동안에는 ID를 발급하지 않음
+      다른 노드가 ID를 가져갔으면 새 ID를 임대해 전환 (그 전까지 발급 차단)
+    - 정상 종료 시 바로 지우지 않고 짧은 격리 시간만 남김
+      (Snowflake가 미래 ms를 빌려 썼을 수 있으므로, 새 노드가 같은 ID로 같은 ms 구간을 발급하지 않도록)
+    노드 간 시계 차이가 격리 시간보다 크면 재사용 직후 충돌 가능 - NTP 동기화 전제
+*/
+@Slf4j
+@Component
+public class SnowflakeNodeLease {
+
+    private static final String NODE_KEY = "snowflake:node:%d";
+    private static final String CURSOR_KEY = "snowflake:node:cursor";
+    private static final int NODE_ID_SPACE = 1024;
+    // 로컬/Redis 시계 진행 차이, 네트워크 지연에 대한 여유
+    private static final long FENCE_SAFETY_MS = 1_000L;
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisScript<Long> shardLeaseAcquireScript;
+    private final ScheduledExecutorService registryScheduler;
+    private final String serverIdentifier;
+    private final long ttlMs;
+    private final long releaseQuarantineMs;
+    private final long fenceMarginMs;
+
+    // 현재 임대 (null이면 발급 차단) - 노드 ID와 유효 시각을 함께 교체
+    private volatile Lease lease;
+
+    public SnowflakeNodeLease(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            @Qualifier("shardLeaseAcquireScript") RedisScript<Long> shardLeaseAcquireScript,
+            @Qualifier("registryScheduler") ScheduledExecutorService registryScheduler,
+            String serverIdentifier,
+            @Value("${snowflake.node-lease.ttl-ms:30000}") long ttlMs,
+            @Value("${snowflake.max-drift-ms:100}") long maxDriftMs
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.shardLeaseAcquireScript = shardLeaseAcquireScript;
+        this.registryScheduler = registryScheduler;
+        this.serverIdentifier = serverIdentifier;
+        this.ttlMs = ttlMs;
+        this.releaseQuarantineMs = maxDriftMs + 1_000L;
+        // 빌려 쓴 미래 ms만큼 일찍 차단 -> 다음 소유자의 ID와 타임스탬프 구간이 겹치지 않음
+        this.fenceMarginMs = maxDriftMs + FENCE_SAFETY_MS;
+        if (ttlMs <= fenceMarginMs * 2) {
+            throw new IllegalArgumentException("snowflake.node-lease.ttl-ms가 너무 짧습니다: " + ttlMs);
+        }
+    }
+
+    @PostConstruct
+    public void acquire() {
+        if (!leaseFreeId()) {
+            // 기동 실패 - 고정 ID로 떠서 다른 노드와 충돌하는 것보다 낫다
+            throw new IllegalStateException("사용 가능한 Snowflake 노드 ID가 없습니다 (0 ~ " + (NODE_ID_SPACE - 1) + " 모두 임대 중)");
+        }
+
+        long interval = Math.max(1L, ttlMs / 3);
+        registryScheduler.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 발급 시점의 노드 ID (Snowflake가 ID마다 호출)
+     * @throws IllegalStateException 임대가 만료됐을 수 있으면 (갱신 실패 또는 다른 노드가 가져감)
+     */
+    public long currentNodeId() {
+        Lease current = lease;
+        if (current == null || System.currentTimeMillis() >= current.validUntil) {
+            throw new IllegalStateException("Snowflake 노드 ID 임대가 유효하지 않아 ID를 발급할 수 없습니다.");
+        }
+        return current.nodeId;
+    }
+
+    private void heartbeat() {
+        Lease current = lease;
+        try {
+            if (current != null) {
+                long sentAt = System.currentTimeMillis();
+                if (tryLease(current.nodeId, ttlMs)) {
+                    lease = new Lease(current.nodeId, sentAt + ttlMs - fenceMarginMs);
+                    return;
+                }
+                // 다른 노드가 같은 ID를 가져감 (TTL 동안 갱신 못 함) - 새 ID로 전환할 때까지 발급 차단
+                lease = null;
+                log.error("[노드 ID 임대] 노드 ID {}를 다른 노드가 임대 중 - 발급 차단 후 새 ID 임대 시도. server: {}",
+                        current.nodeId, serverIdentifier);
+            }
+            if (!leaseFreeId()) {
+                log.error("[노드 ID 임대] 사용 가능한 노드 ID 없음 - 발급 차단 유지. server: {}", serverIdentifier);
+            }
+        } catch (Exception e) {
+            // 유효 시각이 지나면 currentNodeId()가 발급을 차단 (다음 갱신 성공 시 해제)
+            log.error("[노드 ID 임대] 갱신 실패. node: {}", current == null ? -1 : current.nodeId, e);
+        }
+    }
+
+    // 빈 노드 ID를 찾아 임대 - 탐색 시작점은 INCR 커서로 분산
+    private boolean leaseFreeId() {
+        Long cursor = redisTemplateForString.opsForValue().increment(CURSOR_KEY);
+        long start = cursor == null ? 0L : Math.floorMod(cursor, NODE_ID_SPACE);
+
+        for (int i = 0; i < NODE_ID_SPACE; i++) {
+            long candidate = (start + i) % NODE_ID_SPACE;
+            long sentAt = System.currentTimeMillis();
+            if (tryLease(candidate, ttlMs)) {
+                lease = new Lease(candidate, sentAt + ttlMs - fenceMarginMs);
+                log.info("[노드 ID 임대] 획득: {} -> {}", serverIdentifier, candidate);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void release() {
+        Lease current = lease;
+        if (current == null) return;
+        lease = null;
+        try {
+            // 내 임대일 때만 TTL을 격리 시간으로 줄임
+            tryLease(current.nodeId, releaseQuarantineMs);
+            log.info("[노드 ID 임대] 반납: {}", current.nodeId);
+        } catch (Exception e) {
+            // 반납 실패 시 TTL 만료 후 재사용
+            log.error("[노드 ID 임대] 반납 실패: {}", current.nodeId, e);
+        }
+    }
+
+    // 비어 있으면 선점, 내 것이면 TTL 갱신 (작업 샤드 임대 스크립트 재사용)
+    private boolean tryLease(long candidate, long leaseTtlMs) {
+        Long result = redisTemplateForString.execute(
+                shardLeaseAcquireScript,
+                List.of(String.format(NODE_KEY, candidate)),
+                serverIdentifier, String.valueOf(leaseTtlMs)
+        );
+        return result != null && result == 1L;
+    }
+
+    private static final class Lease {
+        private final long nodeId;
+        private final long validUntil;
+
+        private Lease(long nodeId, long validUntil) {
+            this.nodeId = nodeId;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.grpc.client.RelayEnvelope;
+import com.dy.minichat.grpc.client.RelayFailureHandler;
+import com.dy.minichat.service.UndeliveredMessageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/*
+    릴레이하지 못한 채팅 메시지를 미전달 저장 + FCM 푸시로 우회
+
+    - 동기 경로(서킷 OPEN, 적재 거부, 주소 없음)와 비동기 경로(스트림 종료, 배치 RPC 실패) 모두 여기로 모임
+    - TALK만 우회, 읽음 확인(READ_RECEIPT) 등 일시적인 프레임은 폐기
+    - 수신 노드가 이미 처리한 뒤 ack 전에 끊긴 경우 푸시가 중복될 수 있음 (유실보다 중복을 택함)
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UndeliveredRelayDiverter implements RelayFailureHandler {
+
+    private final UndeliveredMessageService undeliveredMessageService;
+
+    @Qualifier("customThreadPool")
+    private final Executor executor;
+
+    @Override
+    public void onRelayFailed(String peerAddress, List<RelayEnvelope> envelopes) {
+        int diverted = 0;
+        for (RelayEnvelope envelope : envelopes) {
+            TalkMessageDTO message = envelope.getMessage();
+            if (message.getType() != TalkMessageDTO.MessageType.TALK) continue;
+
+            for (Long userId : envelope.getRecipientIds()) {
+                executor.execute(() -> undeliveredMessageService.saveAndSendPush(message.getChatId(), userId, message));
+            }
+            diverted++;
+        }
+        if (diverted > 0) {
+            log.warn("대상 {}로 메시지 {}건 릴레이 실패, 미전달/FCM 경로로 우회", peerAddress, diverted);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.global.cache.NearCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    userId -> 접속 서버 ID(ws:user:server:{userId}) 일괄 조회
+
+    기존: 로컬 세션이 없는 수신자마다 GET 1회 -> 500명 방이면 메시지당 500번 왕복
+    변경: 방송 1회당 MGET 1회 + 짧은 TTL 니어 캐시
+        - 캐시는 연결/종료 시 pub/sub으로 모든 노드에서 즉시 무효화
+        - 오프라인(null)도 캐시 -> 오프라인 다수인 방에서도 Redis 부하 일정
+        - [수정] MGET 전에 조회 중 표식을 넣고, 응답 후 표식이 그대로일 때만 캐시에 반영
+          -> MGET 도중 무효화(연결/종료)가 들어오면 표식이 지워지므로 이전 값을 TTL 동안 캐시하지 않음
+*/
+@Slf4j
+@Component
+public class UserPresenceResolver implements MessageListener {
+
+    public static final String PRESENCE_CHANNEL = "ws:presence:events";
+    private static final String USER_SERVER_KEY_PREFIX = "ws:user:server:";
+
+    private final RedisTemplate<String, String> redisTemplateForString;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private static final String OFFLINE = "";
+
+    private final long ttlMs;
+
+    // K: userId, V: 접속 서버 (오프라인이면 OFFLINE)
+    private final NearCache<Long, String> nearCache;
+
+    public UserPresenceResolver(
+            @Qualifier("redisTemplateForString") RedisTemplate<String, String> redisTemplateForString,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${presence.near-cache.ttl-ms:2000}") long ttlMs,
+            @Value("${presence.near-cache.max-entries:100000}") int maxEntries
+    ) {
+        this.redisTemplateForString = redisTemplateForString;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.ttlMs = ttlMs;
+        this.nearCache = new NearCache<>(maxEntries);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PRESENCE_CHANNEL));
+    }
+
+    /**
+     * 수신자들의 접속 서버 조회 (캐시 미스분만 MGET 1회)
+     * @return K: userId, V: serverId (오프라인 유저는 포함되지 않음)
+     */
+    public Map<Long, String> resolve(List<Long> userIds) {
+        Map<Long, String> result = new HashMap<>();
+        if (userIds.isEmpty()) return result;
+
+        List<Long> misses = new ArrayList<>();
+        for (Long userId : userIds) {
+            String cached = nearCache.get(userId);
+            if (cached == null) {
+                misses.add(userId);
+            } else if (!cached.equals(OFFLINE)) {
+                result.put(userId, cached);
+            }
+        }
+        if (misses.isEmpty()) return result;
+
+        // 조회 중 표식 - MGET 도중 무효화되면 표식이 지워져 응답 값을 캐시하지 않음
+        List<NearCache.Loading<String>> loadings = new ArrayList<>(misses.size());
+        List<String> keys = new ArrayList<>(misses.size());
+        for (Long userId : misses) {
+            loadings.add(nearCache.beginLoad(userId));
+            keys.add(USER_SERVER_KEY_PREFIX + userId);
+        }
+        List<String> serverIds = redisTemplateForString.opsForValue().multiGet(keys);
+
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        for (int i = 0; i < misses.size(); i++) {
+            String serverId = (serverIds == null) ? null : serverIds.get(i);
+            // 표식이 지워졌으면 반영하지 않음 (응답 값은 이번 방송에만 사용)
+            nearCache.completeLoad(misses.get(i), loadings.get(i), serverId == null ? OFFLINE : serverId, expiresAt);
+            if (serverId != null) result.put(misses.get(i), serverId);
+        }
+        return result;
+    }
+
+    /**
+     * 연결 수립/종료 시 호출 (ws:user:server 갱신 이후) - 모든 노드의 캐시 무효화
+     */
+    public void markChanged(Long userId) {
+        nearCache.invalidate(userId);
+        try {
+            redisTemplateForString.convertAndSend(PRESENCE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 전파 실패 시 다른 노드는 TTL 만료 후 갱신
+            log.error("접속 상태 변경 이벤트 발행 실패. user: {}", userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            nearCache.invalidate(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("접속 상태 이벤트 파싱 실패: {}", body);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.dy.minichat.component;
 
 import com.dy.minichat.service.UserBanService;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -41,10 +42,9 @@ public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
             log.info("[Handshake] raw token from Header: '{}'", token);
         }
 
-        // 2. 토큰 유효성 검사
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            // 3. 토큰에서 userId 추출
-            Long userId = jwtTokenProvider.getUserIdFromToken(token);
+        // 2~3. [수정] 토큰 검증 + userId 추출을 1회 파싱으로 (검증 결과는 JwtTokenProvider에서 캐시)
+        Long userId = resolveUserId(token);
+        if (userId != null) {
 
             // 4. [AOP 연동] 밴 상태 확인 (AOP보다 먼저 차단)
             if (userBanService.isUserBanned(userId)) {
@@ -75,6 +75,17 @@ public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
         // (필요 없음)
     }
 
+    // @return 토큰이 없거나 유효하지 않으면 null
+    private Long resolveUserId(String token) {
+        if (!StringUtils.hasText(token)) return null;
+        try {
+            return Long.parseLong(jwtTokenProvider.parseClaims(token).getSubject());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("[Handshake] 토큰 검증 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private String extractTokenFromHeader(HttpHeaders headers) {
         String bearer = headers.getFirst(HttpHeaders.AUTHORIZATION);
         if (StringUtils.hasText(bearer) && bearer.startsWith("Bearer ")) {
@@ -0,0 +1,50 @@
+package com.dy.minichat.config;
+
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+@Configuration
+public class KafkaConsumerConfig {
+    /**
+     * 배치 리스너용 컨테이너 팩토리
+     * - poll 한 번에 가져온 레코드를 List로 전달 (spring.kafka.consumer.max-poll-records로 크기 조절)
+     * - 역직렬화 등 나머지 설정은 기본 팩토리(spring.kafka.*)와 동일
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * [신규] write-behind 저장 컨슈머 전용 팩토리 (MessagePersistConsumer)
+     * - 기본 DefaultErrorHandler는 9회 재시도 후 배치를 건너뛰고 오프셋을 커밋 -> DB 장애 시 메시지 유실
+     * - 저장은 멱등(INSERT IGNORE)이므로 건너뛰지 않고 무한 재시도 (1초부터 2배씩, 최대 30초 간격)
+     *   재시도 중에는 컨슈머를 pause한 채 poll을 유지 -> 리밸런스 없음
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> persistKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        backOff.setMaxElapsedTime(Long.MAX_VALUE); // 포기하지 않음
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
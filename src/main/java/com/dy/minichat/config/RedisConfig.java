@@ -8,9 +8,12 @@ import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactor
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
 @Configuration
 public class RedisConfig {
     @Value("${spring.data.redis.host}")
@@ -55,19 +58,191 @@ public class RedisConfig {
         return template;
     }
 
+    // 노드 간 로컬 캐시 무효화(pub/sub) 수신용 컨테이너
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        return container;
+    }
+
+    /*
+        [수정] 읽음 위치 갱신 + 채팅방별 읽음 위치 인덱스(lastRead:rank) 동시 갱신
+        Snowflake ID는 2^53을 넘어 Lua 숫자(double)로 비교하면 정밀도가 깨지므로
+        19자리 0 패딩 문자열로 사전순 비교
+        [수정] 유저별 키(lastRead:user:{u}:chat:{c}) 대신 채팅방당 HASH 1개 + 샤드별 dirty set
+    */
     @Bean
     public RedisScript<Long> lastReadUpdateScript() {
         String script =
-                // KEYS[1]:
-                // KEYS[2]: Dirty Set
-                // ARGV[1]:
-                "local current = redis.call('GET', KEYS[1]) " +
-                        "if not current or tonumber(ARGV[1]) > tonumber(current) then " + //
-                        "redis.call('SET', KEYS[1], ARGV[1]) " +
-                        "redis.call('SADD', KEYS[2], KEYS[1]) " +
-                        "return 1 " + // 1 (
+                // KEYS[1]: lastRead:chat:{chatId}         (HASH, userId -> lastReadId)
+                // KEYS[2]: lastRead:dirty:{shard}         (SET, member = chatId:userId)
+                // KEYS[3]: lastRead:rank:chat:{chatId}    (ZSET, member = 패딩된 lastReadId:userId, score 0)
+                // ARGV[1]: lastReadId, ARGV[2]: userId, ARGV[3]: chatId
+                "local function pad(v) return string.rep('0', 19 - #v) .. v end " +
+                        "local next = pad(ARGV[1]) " +
+                        "local prev = redis.call('HGET', KEYS[1], ARGV[2]) " +
+                        "if prev then " +
+                        "  prev = pad(prev) " +
+                        "  if prev >= next then return 0 end " +
+                        "  redis.call('ZREM', KEYS[3], prev .. ':' .. ARGV[2]) " +
+                        "end " +
+                        "redis.call('ZADD', KEYS[3], 0, next .. ':' .. ARGV[2]) " +
+                        "redis.call('HSET', KEYS[1], ARGV[2], ARGV[1]) " +
+                        "redis.call('SADD', KEYS[2], ARGV[3] .. ':' .. ARGV[2]) " +
+                        "return 1"; // 1: 갱신, 0: 기존 값이 같거나 더 큼
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    // [신규] 읽음 위치 인덱스 초기 구축 (ready 마커가 없을 때 1회) - 이미 더 큰 값이 있으면 유지
+    @Bean
+    public RedisScript<Long> lastReadRankBuildScript() {
+        String script =
+                // KEYS[1]: lastRead:chat HASH, KEYS[2]: rank ZSET, KEYS[3]: ready 마커
+                // ARGV: userId, lastReadId 쌍 반복 (DB/HASH에서 모은 값 - dirty 표시 안 함)
+                "local function pad(v) return string.rep('0', 19 - #v) .. v end " +
+                        "if redis.call('EXISTS', KEYS[3]) == 1 then return 0 end " +
+                        "for i = 1, #ARGV, 2 do " +
+                        "  local next = pad(ARGV[i + 1]) " +
+                        "  local prev = redis.call('HGET', KEYS[1], ARGV[i]) " +
+                        "  if prev then prev = pad(prev) end " +
+                        "  if not prev or prev < next then " +
+                        "    if prev then redis.call('ZREM', KEYS[2], prev .. ':' .. ARGV[i]) end " +
+                        "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+                        "    prev = next " +
+                        "  end " +
+                        "  redis.call('ZADD', KEYS[2], 0, prev .. ':' .. ARGV[i]) " +
                         "end " +
-                        "return 0"; // 0 (
+                        "redis.call('SET', KEYS[3], '1') " +
+                        "return 1";
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    // [신규] 퇴장한 참여자를 읽음 위치 인덱스에서 제거
+    @Bean
+    public RedisScript<Long> lastReadRankRemoveScript() {
+        String script =
+                // KEYS[1]: lastRead:chat HASH, KEYS[2]: rank ZSET / ARGV[1]: userId
+                "local prev = redis.call('HGET', KEYS[1], ARGV[1]) " +
+                        "if not prev then return 0 end " +
+                        "redis.call('ZREM', KEYS[2], string.rep('0', 19 - #prev) .. prev .. ':' .. ARGV[1]) " +
+                        "redis.call('HDEL', KEYS[1], ARGV[1]) " +
+                        "return 1";
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /*
+        [신규] 메시지 페이지 [minId, maxId]의 안 읽은 수 계산용 조회 (왕복 1회)
+        반환: {} (인덱스 미구축) 또는 {읽음 기록 수, minId 미만까지 읽은 수, [minId, maxId) 구간 member...}
+    */
+    @Bean
+    @SuppressWarnings("rawtypes")
+    public RedisScript<List> lastReadRankScanScript() {
+        String script =
+                // KEYS[1]: rank ZSET, KEYS[2]: ready 마커 / ARGV[1]: 패딩된 minId, ARGV[2]: 패딩된 maxId
+                "if redis.call('EXISTS', KEYS[2]) == 0 then return {} end " +
+                        "local result = { tostring(redis.call('ZCARD', KEYS[1])), " +
+                        "tostring(redis.call('ZLEXCOUNT', KEYS[1], '-', '(' .. ARGV[1])) } " +
+                        "local inRange = redis.call('ZRANGEBYLEX', KEYS[1], '[' .. ARGV[1], '(' .. ARGV[2]) " +
+                        "for i = 1, #inRange do result[#result + 1] = inRange[i] end " +
+                        "return result";
+
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    // [신규] 작업 샤드 임대(lease) 획득/갱신 - 비어 있으면 획득, 내 것이면 연장
+    @Bean
+    public RedisScript<Long> shardLeaseAcquireScript() {
+        String script =
+                // KEYS[1]: lease:{job}:{shard} / ARGV[1]: serverId, ARGV[2]: TTL(ms)
+                "local owner = redis.call('GET', KEYS[1]) " +
+                        "if not owner then " +
+                        "  redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+                        "  return 1 " +
+                        "end " +
+                        "if owner == ARGV[1] then " +
+                        "  redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                        "  return 1 " +
+                        "end " +
+                        "return 0";
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    // [신규] 작업 샤드 임대 반납 - 내 것일 때만 삭제
+    @Bean
+    public RedisScript<Long> shardLeaseReleaseScript() {
+        String script =
+                // KEYS[1]: lease:{job}:{shard} / ARGV[1]: serverId
+                "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+                        "  return redis.call('DEL', KEYS[1]) " +
+                        "end " +
+                        "return 0";
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /*
+        [수정] 최근 메시지 캐시 - List -> ZSET (score 0, member = 19자리 zero-padded ID + "|" + JSON)
+        - 사전순 = ID순 (Snowflake ID는 2^53을 넘어 double score로는 정확히 비교할 수 없음)
+        - 길이 제한은 ZREMRANGEBYRANK로 가장 작은 ID부터 제거 -> 남은 캐시는 항상 "최소 ID 이후의 연속 구간"
+    */
+
+    // [신규] 최근 메시지 캐시 적재 - 현재 최소 ID보다 작은 메시지는 넣지 않음 (그 사이 메시지가 캐시에 없으므로 구멍이 생김)
+    @Bean
+    public RedisScript<Long> recentMessagePushScript() {
+        String script =
+                // KEYS[1]: chat:{chatId}:recent
+                // ARGV[1]: 최대 길이, ARGV[2]: TTL (ms), ARGV[3..]: member
+                "local lowest = redis.call('ZRANGE', KEYS[1], 0, 0)[1] " +
+                        "local added = 0 " +
+                        "for i = 3, #ARGV do " +
+                        "  if (not lowest) or ARGV[i] > lowest then " +
+                        "    added = added + redis.call('ZADD', KEYS[1], 0, ARGV[i]) " +
+                        "  end " +
+                        "end " +
+                        "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 1)) " +
+                        "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                        "return added";
+
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    // [신규] 최근 메시지 캐시 워밍 - 캐시가 아직 없을 때만 채움 (동시에 들어온 적재를 덮어쓰지 않도록)
+    @Bean
+    public RedisScript<Long> recentMessageWarmScript() {
+        String script =
+                // KEYS[1]: chat:{chatId}:recent
+                // ARGV[1]: 최대 길이, ARGV[2]: TTL (ms), ARGV[3..]: member
+                "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+                        "for i = 3, #ARGV do redis.call('ZADD', KEYS[1], 0, ARGV[i]) end " +
+                        "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 1)) " +
+                        "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                        "return 1";
 
         DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
         redisScript.setScriptText(script);
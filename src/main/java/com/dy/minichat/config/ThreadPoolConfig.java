@@ -1,12 +1,18 @@
 package com.dy.minichat.config;
 
+import com.dy.minichat.property.LastReadSyncProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 @EnableAsync
@@ -24,4 +30,64 @@ public class ThreadPoolConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /*
+        세션별 송신 큐(SessionOutboundQueue) 드레인 전용 풀
+        - 세션당 드레인 태스크는 최대 1개만 예약되므로 대기 태스크 수는 세션 수를 넘지 않음
+        - CallerRunsPolicy를 쓰면 팬아웃 스레드가 느린 소켓에 직접 막힐 수 있어 기본(무제한) 큐 사용
+    */
+    @Bean(name = "outboundSendExecutor")
+    public Executor outboundSendExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(16);
+        executor.setMaxPoolSize(16);
+        executor.setThreadNamePrefix("Ws-Send-");
+        executor.initialize();
+        return executor;
+    }
+
+    // [수정] gRPC 릴레이용 스케줄러 - 마이크로 배치 flush 예약 + 피어 헬스 체크 (작업은 매우 짧음)
+    @Bean(name = "relayScheduler", destroyMethod = "shutdown")
+    public ScheduledExecutorService relayScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Relay-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // [신규] 노드 레지스트리 하트비트/재동기화용 (Redis 블로킹 호출이 배치 flush를 지연시키지 않도록 분리)
+    @Bean(name = "registryScheduler", destroyMethod = "shutdown")
+    public ScheduledExecutorService registryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Node-Registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // [신규] 밴 필터 재구성 전용 (MySQL + Redis 조회가 길어져도 노드 하트비트/ID 임대 갱신을 지연시키지 않도록 분리)
+    @Bean(name = "banFilterScheduler", destroyMethod = "shutdown")
+    public ScheduledExecutorService banFilterScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Ban-Filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // [신규] 읽음 위치 Redis -> MySQL 연속 드레인 워커 (워커당 스레드 1개를 계속 점유)
+    @Bean(name = "lastReadSyncExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService lastReadSyncExecutor(LastReadSyncProperties properties) {
+        return Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()), new ThreadFactory() {
+            private final AtomicInteger sequence = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LastRead-Sync-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
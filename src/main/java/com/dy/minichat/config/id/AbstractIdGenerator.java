@@ -1,8 +1,12 @@
 package com.dy.minichat.config.id;
 
+import com.dy.minichat.global.id.IdBlock;
 import com.dy.minichat.global.id.Snowflake;
 
 public abstract class AbstractIdGenerator {
+    // generateBlock 1회로 예약할 수 있는 최대 개수 (ms당 시퀀스 수)
+    public static final int MAX_BLOCK_SIZE = 4096;
+
     protected final Snowflake snowflake;
 
     protected AbstractIdGenerator(Snowflake snowflake) {
@@ -12,4 +16,20 @@ public abstract class AbstractIdGenerator {
     public long generate(){
         return snowflake.nextId();
     }
+
+    /**
+     * 배치 INSERT용 연속 ID 예약 (CAS 1회) - 반환된 블록은 호출 스레드에서만 사용
+     * 한 번에 최대 4096개, 그 이상은 나눠서 호출
+     */
+    public IdBlock generateBlock(int count) {
+        return snowflake.nextBlock(count);
+    }
+
+    public long minIdAt(long epochMillis) {
+        return snowflake.minIdAt(epochMillis);
+    }
+
+    public long timestampOf(long id) {
+        return snowflake.timestampOf(id);
+    }
 }
\ No newline at end of file
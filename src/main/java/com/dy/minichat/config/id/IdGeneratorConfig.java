@@ -1,39 +1,92 @@
 package com.dy.minichat.config.id;
 
+import com.dy.minichat.component.SnowflakeNodeLease;
 import com.dy.minichat.global.id.Snowflake;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/*
+    [수정] 도메인별 Snowflake 인스턴스
+    - 기존: Snowflake 빈 1개를 모든 생성기가 공유 -> 메시지/미전달/참여 row 발급이 한 모니터에서 경합
+    - 변경: 생성기마다 인스턴스(시퀀스 공간)를 따로 둠 - ID는 도메인(테이블) 안에서만 유일하면 됨
+    - 생성기 클래스의 @Component 제거 (여기서만 등록)
+
+    [수정] 노드 ID 고정값(1) -> Redis 임대 (SnowflakeNodeLease) - 여러 노드가 각자 ID 발급 가능
+           임대가 유효하지 않으면 발급 실패 (IllegalStateException), 재임대 시 새 노드 ID로 전환
+
+    [신규] 발급 메트릭 (tag: domain)
+    - minichat.id.issued: 발급 수 (rate / 1000 = ids/ms)
+    - minichat.id.borrowed: 시퀀스 소진으로 다음 ms를 빌린 횟수
+    - minichat.id.clock.rollback: 시계 역행 관측 수
+    - minichat.id.stall: 빌림 한도 초과로 시계를 기다린 횟수
+    - minichat.id.stall.timeout: 대기가 snowflake.max-wait-ms를 넘어 발급에 실패한 횟수
+    - minichat.id.drift: 마지막 발급 타임스탬프가 실제 시계보다 앞선 정도(ms)
+*/
 @Configuration
+@RequiredArgsConstructor
 public class IdGeneratorConfig {
 
+    private final SnowflakeNodeLease snowflakeNodeLease;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${snowflake.max-drift-ms:100}")
+    private long maxDriftMs;
+
+    @Value("${snowflake.max-wait-ms:1000}")
+    private long maxWaitMs;
+
     @Bean
-    public Snowflake snowflake() {
-        return new Snowflake(1L);
+    public UserIdGenerator userIdGenerator() {
+        return new UserIdGenerator(snowflake("user"));
     }
 
     @Bean
-    public UserIdGenerator userIdGenerator(Snowflake snowflake) {
-        return new UserIdGenerator(snowflake);
+    public ChatIdGenerator chatIdGenerator() {
+        return new ChatIdGenerator(snowflake("chat"));
     }
 
     @Bean
-    public ChatIdGenerator chatIdGenerator(Snowflake snowflake) {
-        return new ChatIdGenerator(snowflake);
+    public MessageIdGenerator messageIdGenerator() {
+        return new MessageIdGenerator(snowflake("message"));
     }
 
     @Bean
-    public MessageIdGenerator messageIdGenerator(Snowflake snowflake) {
-        return new MessageIdGenerator(snowflake);
+    public UserChatIdGenerator userChatIdGenerator() {
+        return new UserChatIdGenerator(snowflake("user_chat"));
     }
 
     @Bean
-    public UserChatIdGenerator userChatIdGenerator(Snowflake snowflake) {
-        return new UserChatIdGenerator(snowflake);
+    public UndeliveredMessageIdGenerator unreadMessageIdGenerator() {
+        return new UndeliveredMessageIdGenerator(snowflake("undelivered_message"));
     }
 
-    @Bean
-    public UndeliveredMessageIdGenerator unreadMessageIdGenerator(Snowflake snowflake) {
-        return new UndeliveredMessageIdGenerator(snowflake);
+    private Snowflake snowflake(String domain) {
+        Snowflake snowflake = new Snowflake(snowflakeNodeLease::currentNodeId, maxDriftMs, maxWaitMs);
+
+        FunctionCounter.builder("minichat.id.issued", snowflake, Snowflake::getIssuedCount)
+                .tag("domain", domain)
+                .register(meterRegistry);
+        FunctionCounter.builder("minichat.id.borrowed", snowflake, Snowflake::getBorrowedCount)
+                .tag("domain", domain)
+                .register(meterRegistry);
+        FunctionCounter.builder("minichat.id.clock.rollback", snowflake, Snowflake::getRollbackCount)
+                .tag("domain", domain)
+                .register(meterRegistry);
+        FunctionCounter.builder("minichat.id.stall", snowflake, Snowflake::getStallCount)
+                .tag("domain", domain)
+                .register(meterRegistry);
+        FunctionCounter.builder("minichat.id.stall.timeout", snowflake, Snowflake::getStallTimeoutCount)
+                .tag("domain", domain)
+                .register(meterRegistry);
+        Gauge.builder("minichat.id.drift", snowflake, Snowflake::getDriftMs)
+                .tag("domain", domain)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return snowflake;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.dy.minichat.controller;
 
 import com.dy.minichat.dto.request.LastReadMessageRequestDTO;
 import com.dy.minichat.dto.response.MessageResponseDTO;
+import com.dy.minichat.dto.response.MessageSliceResponseDTO;
 import com.dy.minichat.global.model.BaseResponseBody;
 import com.dy.minichat.service.MessageService;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,9 @@ import java.util.List;
 @RequestMapping("/minichat")
 @RequiredArgsConstructor
 public class MessageController {
+    // [수정] 커서 조회 1회 최대 메시지 수 - 과도한 size로 캐시/DB를 한 번에 긁지 않도록
+    private static final int MAX_SLICE_SIZE = 100;
+
     private final MessageService messageService;
 
     /*  --> 웹소켓에서 써서 별 소용 없을 듯...?
@@ -42,6 +46,22 @@ public class MessageController {
         return ResponseEntity.status(200).body(data);
     }
 
+    // == [신규] 커서 기반 메세지 목록 및 안 읽은 사람 수 반환 API == //
+    // beforeId / afterId: Snowflake 메시지 ID 커서 (둘 다 없으면 최신 페이지)
+    @GetMapping("/chats/{chatId}/messages/cursor")
+    public ResponseEntity<MessageSliceResponseDTO> getMessageSliceWithUnreadCounts (
+            @PathVariable Long chatId,
+            @AuthenticationPrincipal Long userId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        // size는 1 ~ MAX_SLICE_SIZE 범위로 보정 (0 이하면 PageRequest 생성 실패)
+        int limit = Math.min(Math.max(size, 1), MAX_SLICE_SIZE);
+        MessageSliceResponseDTO data = messageService.getMessageSliceWithUnreadCounts(chatId, userId, beforeId, afterId, limit);
+        return ResponseEntity.status(200).body(data);
+    }
+
     // == 메세지 읽음 상태 업데이트 API == //
     @PutMapping("/chats/{chatId}/read")
     public ResponseEntity<BaseResponseBody> updateLastReadMessage(
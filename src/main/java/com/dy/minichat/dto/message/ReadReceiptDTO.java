@@ -0,0 +1,24 @@
+package com.dy.minichat.dto.message;
+
+import lombok.*;
+
+import java.util.Map;
+
+/*
+    읽음 확인 방송 프레임 (서버 -> 클라이언트)
+    flush 주기 동안 같은 채팅방에서 바뀐 읽음 위치를 한 프레임에 모아서 전송
+*/
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadReceiptDTO {
+
+    private TalkMessageDTO.MessageType type;
+
+    private Long chatId;
+
+    // K: userId, V: 해당 유저가 마지막으로 읽은 메시지 ID
+    private Map<Long, Long> reads;
+}
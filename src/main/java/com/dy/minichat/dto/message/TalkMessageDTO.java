@@ -18,6 +18,9 @@ public class TalkMessageDTO {
     // 아래의 필드들은 응답별로 구분
     // 메시지의 종류 (입장, 대화, 읽음 등)
 
+    // [신규] Snowflake 메시지 ID - 발행 전에 발급 (write-behind 저장 / 클라이언트 식별용)
+    private Long messageId;
+
     private Long senderId;
 
     private Long chatId;
@@ -26,13 +29,15 @@ public class TalkMessageDTO {
 
     private String content;
 
-    // 마지막으로 읽은 메시지 ID (READ 타입일 때 사용)
+    // 마지막으로 읽은 메시지 ID (READ_ACK 타입일 때 사용)
     private Long lastMessageId;
 
     private Instant timestamp;
 
     // 메시지 타입을 관리하기 위한 Enum
     public enum MessageType {
-        TALK
+        TALK,
+        READ_ACK,       // [신규] 클라이언트 -> 서버: lastMessageId까지 읽음
+        READ_RECEIPT    // [신규] 서버 -> 클라이언트: 채팅방 읽음 위치 변경 묶음 (ReadReceiptDTO)
     }
 }
\ No newline at end of file
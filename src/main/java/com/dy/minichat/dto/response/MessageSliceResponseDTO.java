@@ -0,0 +1,19 @@
+package com.dy.minichat.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+    커서 기반 메시지 목록 응답
+    - messages: 오래된 순 정렬
+    - hasNext : 요청 방향으로 더 가져올 메시지가 있는지
+                (beforeId 방향이면 messages 첫 ID, afterId 방향이면 마지막 ID를 다음 커서로 사용)
+*/
+@Getter
+@AllArgsConstructor
+public class MessageSliceResponseDTO {
+    private List<MessageResponseDTO> messages;
+    private boolean hasNext;
+}
@@ -1,11 +1,13 @@
 package com.dy.minichat.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
@@ -14,8 +16,12 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "messages")
-public class Message {
+@Table(name = "messages",
+        indexes = {
+                // [신규] 채팅방별 커서(keyset) 조회용: WHERE chat_id = ? AND id < ? ORDER BY id DESC
+                @Index(name = "idx_message_chat_id", columnList = "chat_id, id")
+        })
+public class Message implements Persistable<Long> {
     @Id
     private Long id;
 
@@ -37,4 +43,26 @@ public class Message {
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    /*
+        [신규] ID를 Snowflake로 직접 할당하므로 기본 isNew(id == null) 판단이 항상 false
+        -> save() 가 merge로 동작하며 INSERT 전에 SELECT 1회 발생
+        새로 만든 엔티티는 persist로 바로 INSERT 하도록 신규 여부를 직접 관리
+    */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package com.dy.minichat.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
@@ -18,7 +20,7 @@ import java.time.LocalDateTime;
         indexes = {
                 @Index(name = "idx_user_chat", columnList = "user_id, chat_id")
         })
-public class UserChat {
+public class UserChat implements Persistable<Long> {
     @Id
     private Long id;
 
@@ -73,4 +75,25 @@ public class UserChat {
 
     // @Version
     // private int version;
+
+    /*
+        [신규] ID를 생성기로 직접 할당 -> Message와 같은 방식으로 신규 여부를 직접 관리
+        (save()가 merge로 동작해 INSERT 전에 SELECT 하지 않도록)
+    */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
\ No newline at end of file
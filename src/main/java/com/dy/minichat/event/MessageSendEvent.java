@@ -10,4 +10,11 @@ import lombok.*;
 @Builder
 public class MessageSendEvent {
     private TalkMessageDTO talkMessage;
+
+    // [신규] 프로듀서에서 한 번만 인코딩한 WebSocket 프레임(JSON bytes)
+    // 컨슈머/원격 노드는 재직렬화 없이 이 버퍼를 그대로 전송
+    private byte[] payload;
+
+    // [신규] 발행 전에 DB에 동기 저장된 메시지 (write-behind 비활성 노드) -> 저장 컨슈머는 건너뜀
+    private boolean persisted;
 }
\ No newline at end of file
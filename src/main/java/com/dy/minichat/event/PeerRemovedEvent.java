@@ -0,0 +1,14 @@
+package com.dy.minichat.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+    [신규] 노드 레지스트리의 피어 테이블에서 gRPC 주소가 빠졌을 때 발행 (DOWN 이벤트 / 하트비트 TTL 만료)
+    - 같은 주소를 쓰는 다른 노드가 남아 있으면 발행하지 않음
+*/
+@Getter
+@AllArgsConstructor
+public class PeerRemovedEvent {
+    private final String address;
+}
@@ -0,0 +1,143 @@
+package com.dy.minichat.global.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/*
+    항목별 만료 시각을 가진 크기 제한 니어 캐시 (JWT Claims / 참여 여부 / 밴 여부 / 접속 서버 캐시 공용)
+
+    - 만료된 항목은 조회 시 제거
+    - 가득 차면 전체를 비우지 않고 일부(maxEntries / 16)만 제거
+      1) 만료된 항목 우선  2) 모자라면 순회 순서(해시 순서 = 사실상 임의)대로 제거
+      -> 재연결 폭주처럼 캐시가 가장 필요할 때 캐시 전체가 한꺼번에 사라지지 않음
+    - 조회 중 표식(beginLoad / completeLoad)
+      원본 조회 전에 표식을 넣고, 조회가 끝났을 때 표식이 그대로일 때만 값을 반영
+      -> 조회 도중 invalidate가 들어오면 표식이 지워지므로 이전 값을 TTL 동안 캐시하지 않음
+*/
+public final class NearCache<K, V> {
+
+    private static final int EVICT_FRACTION = 16;
+    // 만료 항목을 찾기 위해 확인하는 최대 항목 수 = 제거 목표 x 이 값
+    private static final int EXPIRED_SCAN_FACTOR = 4;
+
+    private final Map<K, Slot<V>> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final int evictBatch;
+    private final LongSupplier clock;
+    // 동시에 여러 스레드가 제거하지 않도록 (제거 중에는 잠시 maxEntries를 넘을 수 있음)
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public NearCache(int maxEntries) {
+        this(maxEntries, System::currentTimeMillis);
+    }
+
+    NearCache(int maxEntries, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries는 1 이상이어야 합니다: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.evictBatch = Math.max(1, maxEntries / EVICT_FRACTION);
+        this.clock = clock;
+    }
+
+    /**
+     * @return 만료되지 않은 값, 없거나 만료됐거나 조회 중이면 null
+     */
+    public V get(K key) {
+        Slot<V> slot = entries.get(key);
+        if (slot == null || slot.loading) return null;
+        if (slot.expiresAt <= clock.getAsLong()) {
+            entries.remove(key, slot);
+            return null;
+        }
+        return slot.value;
+    }
+
+    /**
+     * @param value null 불가
+     * @param expiresAt 만료 시각 (epoch ms)
+     */
+    public void put(K key, V value, long expiresAt) {
+        evictIfFull();
+        entries.put(key, new Slot<>(value, expiresAt, false));
+    }
+
+    /**
+     * 원본 조회 전에 호출 - 반환된 표식을 completeLoad에 그대로 넘김
+     */
+    public Loading<V> beginLoad(K key) {
+        evictIfFull();
+        Slot<V> marker = new Slot<>(null, Long.MIN_VALUE, true);
+        entries.put(key, marker);
+        return new Loading<>(marker);
+    }
+
+    /**
+     * 표식이 그대로일 때만 값 반영 (조회 도중 invalidate 되었거나 다른 조회가 덮었으면 버림)
+     * @return 반영 여부
+     */
+    public boolean completeLoad(K key, Loading<V> loading, V value, long expiresAt) {
+        return entries.replace(key, loading.marker, new Slot<>(value, expiresAt, false));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull() {
+        if (entries.size() < maxEntries || !evicting.compareAndSet(false, true)) return;
+        try {
+            long now = clock.getAsLong();
+            int removed = 0;
+            int scanLimit = evictBatch * EXPIRED_SCAN_FACTOR;
+
+            Iterator<Slot<V>> it = entries.values().iterator();
+            for (int scanned = 0; it.hasNext() && scanned < scanLimit && removed < evictBatch; scanned++) {
+                Slot<V> slot = it.next();
+                if (!slot.loading && slot.expiresAt <= now) {
+                    it.remove();
+                    removed++;
+                }
+            }
+
+            it = entries.values().iterator();
+            while (removed < evictBatch && it.hasNext()) {
+                it.next();
+                it.remove();
+                removed++;
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * beginLoad가 넣은 표식 - 같은 키라도 호출마다 다른 인스턴스
+     */
+    public static final class Loading<V> {
+        private final Slot<V> marker;
+
+        private Loading(Slot<V> marker) {
+            this.marker = marker;
+        }
+    }
+
+    private static final class Slot<V> {
+        private final V value;
+        private final long expiresAt;
+        private final boolean loading;
+
+        private Slot(V value, long expiresAt, boolean loading) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.loading = loading;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.dy.minichat.global.id;
+
+/*
+    Snowflake.nextBlock()으로 예약한 연속 ID 구간 [firstId, firstId + size)
+    한 스레드(한 배치)에서만 사용 - 스레드 간 공유하지 않음
+*/
+public class IdBlock {
+    private final long firstId;
+    private final int size;
+    private int used;
+
+    IdBlock(long firstId, int size) {
+        this.firstId = firstId;
+        this.size = size;
+    }
+
+    public boolean hasNext() {
+        return used < size;
+    }
+
+    public long next() {
+        if (used >= size) {
+            throw new IllegalStateException("예약한 ID를 모두 사용했습니다. size: " + size);
+        }
+        return firstId + used++;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -1,36 +1,241 @@
 package com.dy.minichat.global.id;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+    Snowflake ID = [1bit 미사용][41bit 타임스탬프][10bit 노드 ID][12bit 시퀀스]
+
+    [수정] synchronized -> CAS
+    - (타임스탬프, 시퀀스)를 AtomicLong 하나에 묶어 compareAndSet으로 발급 (모니터 경합 없음)
+    - 도메인(User/Chat/Message/...)마다 인스턴스를 따로 두어 서로 경합하지 않음 (IdGeneratorConfig)
+
+    [수정] 시퀀스 소진 / 시계 역행
+    - 같은 ms의 시퀀스(4096개)를 다 쓰면 다음 ms를 미리 빌려 씀 (대기 없음)
+      단, 빌린 타임스탬프가 실제 시계보다 maxDriftMs 넘게 앞서면 시계가 따라올 때까지 대기
+    - 시계 역행: 지금까지 관측한 가장 큰 시각(clockHighWater)을 기준으로 계속 발급 -> 같은 프로세스 안에서는 중복 없음
+      (역행한 만큼 ID 타임스탬프가 실제 시각보다 앞서며, 역행 관측 수는 메트릭으로 노출)
+    - [수정] 역행 중에는 시각이 high water에 고정되므로, 그 사이 시퀀스를 다 쓰면 대기 시간 = 역행 폭 (1ms로 끝나지 않음)
+      -> 대기는 maxWaitMs까지만, 넘으면 IllegalStateException으로 발급 실패 (요청 스레드를 무기한 붙잡지 않음)
+    - 메트릭: 발급 수(issued), 빌린 ms 수(borrowed), 역행 관측 수(rollbacks), 대기 수(stalls), 대기 초과 실패 수(stallTimeouts),
+             현재 앞서 있는 정도(driftMs)
+*/
+@Slf4j
 public class Snowflake {
     private static final int UNUSED_SIGH_BITS = 1;
     private static final int EPOCH_BITS = 41;
     private static final int NODE_ID_BITS = 10;
     private static final int SEQUENCE_BITS = 12;
     private static final long DEFAULT_CUSTOM_EPOCH = 1735689600000L; // 2025-01-01 00:00:00 UTC
-    private final long nodeId;
+    private static final long DEFAULT_MAX_DRIFT_MS = 100L;
+    private static final long DEFAULT_MAX_WAIT_MS = 1_000L;
+
+    private static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    // 역행 로그는 이 간격마다 1회만
+    private static final long ROLLBACK_LOG_INTERVAL_MS = 10_000L;
+
+    // [수정] 노드 ID는 발급 시점마다 조회 (임대 만료 시 예외로 발급 차단, 재임대 시 새 ID로 전환)
+    private final LongSupplier nodeId;
     private final long customEpoch;
+    private final long maxDriftMs;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
 
-    private volatile long lastTimestamp = -1L;
-    private volatile long sequence = 0L;
+    // 상위 비트: 마지막 발급 타임스탬프(customEpoch 기준), 하위 12bit: 그 ms에서 마지막으로 쓴 시퀀스
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    // 지금까지 관측한 가장 큰 시계 값(customEpoch 기준) - 역행 판단 / 빌림 한도 기준
+    private final AtomicLong clockHighWater = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong lastRollbackLogAt = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder stallTimeouts = new LongAdder();
 
     public Snowflake(long nodeId) {
+        this(nodeId, DEFAULT_MAX_DRIFT_MS);
+    }
+
+    public Snowflake(long nodeId, long maxDriftMs) {
+        this(nodeId, maxDriftMs, System::currentTimeMillis);
+    }
+
+    /**
+     * @param nodeId 발급할 때마다 호출 - 0 ~ 1023 반환, 노드 ID를 쓸 수 없으면 IllegalStateException (발급 실패)
+     */
+    public Snowflake(LongSupplier nodeId, long maxDriftMs) {
+        this(nodeId, maxDriftMs, DEFAULT_MAX_WAIT_MS);
+    }
+
+    /**
+     * @param maxWaitMs 빌림 한도 초과 시 시계를 기다리는 최대 시간 - 넘으면 발급 실패 (IllegalStateException)
+     */
+    public Snowflake(LongSupplier nodeId, long maxDriftMs, long maxWaitMs) {
+        this(nodeId, maxDriftMs, maxWaitMs, System::currentTimeMillis);
+    }
+
+    Snowflake(long nodeId, long maxDriftMs, LongSupplier clock) {
+        this(fixed(nodeId), maxDriftMs, DEFAULT_MAX_WAIT_MS, clock);
+    }
+
+    Snowflake(long nodeId, long maxDriftMs, long maxWaitMs, LongSupplier clock) {
+        this(fixed(nodeId), maxDriftMs, maxWaitMs, clock);
+    }
+
+    Snowflake(LongSupplier nodeId, long maxDriftMs, long maxWaitMs, LongSupplier clock) {
         this.nodeId = nodeId;
         this.customEpoch = DEFAULT_CUSTOM_EPOCH;
+        this.maxDriftMs = Math.max(0L, maxDriftMs);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maxWaitMs));
+        this.clock = clock;
+    }
+
+    private static LongSupplier fixed(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId는 0 ~ " + MAX_NODE_ID + " 범위여야 합니다: " + nodeId);
+        }
+        return () -> nodeId;
     }
 
-    public synchronized long nextId() {
-        long currentTimestamp = System.currentTimeMillis() - customEpoch;
+    public long nextId() {
+        return reserve(1);
+    }
 
-        if (currentTimestamp == lastTimestamp) {
-            sequence = sequence + 1;
-        } else {
-            sequence = 0;
+    /**
+     * 연속된 ID count개를 한 번의 CAS로 예약 (배치 INSERT용)
+     * 같은 ms / 같은 노드의 연속 시퀀스이므로 ID도 연속 정수 -> IdBlock은 시작 ID와 개수만 가짐
+     * @param count 1 ~ 4096
+     */
+    public IdBlock nextBlock(int count) {
+        if (count < 1 || count > MAX_SEQUENCE + 1) {
+            throw new IllegalArgumentException("count는 1 ~ " + (MAX_SEQUENCE + 1) + " 범위여야 합니다: " + count);
         }
+        return new IdBlock(reserve(count), count);
+    }
+
+    // @return 예약한 구간의 첫 ID
+    private long reserve(int count) {
+        long node = nodeId.getAsLong();
+        // 0이면 아직 대기 안 함 - 대기 시간은 System.nanoTime 기준 (시계 역행/보정에 영향 없음)
+        long waitStartedAt = 0L;
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >> SEQUENCE_BITS;
+            long lastSequence = current & MAX_SEQUENCE;
+            long now = monotonicNow();
+
+            long timestamp;
+            long firstSequence;
+            boolean borrow = false;
+            if (current < 0 || now > lastTimestamp) {
+                timestamp = now;
+                firstSequence = 0;
+            } else if (lastSequence + count <= MAX_SEQUENCE) {
+                // 같은 ms (또는 이미 빌린 ms)의 남은 시퀀스 사용
+                timestamp = lastTimestamp;
+                firstSequence = lastSequence + 1;
+            } else if (lastTimestamp + 1 - now <= maxDriftMs) {
+                // 시퀀스 소진 -> 다음 ms를 빌림 (대기 없음)
+                timestamp = lastTimestamp + 1;
+                firstSequence = 0;
+                borrow = true;
+            } else {
+                // 빌림 한도 초과 -> 시계가 따라올 때까지 대기
+                // 평소에는 1ms 이내지만 역행 중이면 역행 폭만큼 걸리므로 maxWaitMs에서 끊음
+                long waitNow = System.nanoTime();
+                if (waitStartedAt == 0L) {
+                    waitStartedAt = waitNow | 1L;
+                    stalls.increment();
+                } else if (waitNow - waitStartedAt > maxWaitNanos) {
+                    stallTimeouts.increment();
+                    throw new IllegalStateException("Snowflake 시계 대기 초과 (" + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)
+                            + "ms) - 발급 타임스탬프가 시계보다 " + getDriftMs() + "ms 앞서 있음");
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+
+            long next = (timestamp << SEQUENCE_BITS) | (firstSequence + count - 1);
+            if (state.compareAndSet(current, next)) {
+                issued.add(count);
+                if (borrow) borrowed.increment();
+                return timestamp << (NODE_ID_BITS + SEQUENCE_BITS)
+                        | (node << SEQUENCE_BITS)
+                        | firstSequence;
+            }
+        }
+    }
+
+    /*
+        단조 증가 시계 (customEpoch 기준)
+        high water를 시계보다 먼저 읽으므로, 시계 값이 그보다 작으면 실제 역행 (스레드 지연으로 인한 오탐 없음)
+    */
+    private long monotonicNow() {
+        long highWater = clockHighWater.get();
+        long now = clock.getAsLong() - customEpoch;
+        if (now >= highWater) {
+            if (now > highWater) clockHighWater.accumulateAndGet(now, Math::max);
+            return now;
+        }
+
+        rollbacks.increment();
+        long last = lastRollbackLogAt.get();
+        if (highWater - last >= ROLLBACK_LOG_INTERVAL_MS && lastRollbackLogAt.compareAndSet(last, highWater)) {
+            log.warn("[Snowflake] 시계 역행 감지 ({}ms) - 마지막 관측 시각 기준으로 계속 발급", highWater - now);
+        }
+        return highWater;
+    }
+
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    public long getBorrowedCount() {
+        return borrowed.sum();
+    }
+
+    public long getRollbackCount() {
+        return rollbacks.sum();
+    }
+
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    public long getStallTimeoutCount() {
+        return stallTimeouts.sum();
+    }
 
-        lastTimestamp = currentTimestamp;
+    /**
+     * 마지막 발급 타임스탬프가 실제 시계보다 앞서 있는 정도(ms) - 빌림/역행이 없으면 0
+     */
+    public long getDriftMs() {
+        long current = state.get();
+        if (current < 0) return 0L;
+        return Math.max(0L, (current >> SEQUENCE_BITS) - (clock.getAsLong() - customEpoch));
+    }
+
+    /**
+     * 해당 시각(epoch ms)에 발급될 수 있는 가장 작은 ID
+     * -> "이 시각 이후 생성된 row" 조건을 PK 범위 조건(id >= ?)으로 바꿀 때 사용
+     */
+    public long minIdAt(long epochMillis) {
+        return Math.max(0L, epochMillis - customEpoch) << (NODE_ID_BITS + SEQUENCE_BITS);
+    }
 
-        return currentTimestamp << (NODE_ID_BITS + SEQUENCE_BITS)
-                | (nodeId << SEQUENCE_BITS)
-                | sequence;
+    /**
+     * ID에 기록된 발급 시각(epoch ms) - DB 조회 없이 ID의 타당성(미래/채팅방 생성 이전 여부) 검증에 사용
+     */
+    public long timestampOf(long id) {
+        return (id >> (NODE_ID_BITS + SEQUENCE_BITS)) + customEpoch;
     }
 
     public long[] parse(long id) {
@@ -43,4 +248,4 @@ public class Snowflake {
 
         return new long[]{timestamp, nodeId, sequence};
     }
-}
\ No newline at end of file
+}
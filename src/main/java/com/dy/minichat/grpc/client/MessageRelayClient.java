@@ -1,20 +1,28 @@
 package com.dy.minichat.grpc.client;
 
+import com.dy.grpc.proto.RelayBatchRequest;
 import com.dy.grpc.proto.RelayBulkMessageRequest;
 import com.dy.grpc.proto.RelayMessageResponse;
 import com.dy.grpc.proto.RelayMessageServiceGrpc;
 import com.dy.grpc.proto.RelayMessageRequest;
 import com.dy.minichat.dto.message.TalkMessageDTO;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import com.dy.minichat.event.PeerRemovedEvent;
+import com.dy.minichat.property.GrpcRelayProperties;
+import com.dy.minichat.property.GrpcRelayProperties.RelayMode;
+import com.google.protobuf.UnsafeByteOperations;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /*
     서버 (송신 측) grpc client 코드
@@ -24,17 +32,122 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class MessageRelayClient {
 
-    private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+    private final GrpcRelayProperties relayProperties;
+    private final MeterRegistry meterRegistry;
+    // [신규] 피어별 연결 풀 (keepalive, 헬스 체크, 서킷 브레이커)
+    private final PeerChannelPool peerChannelPool;
+    // [신규] 적재 이후 비동기로 실패한 메시지 -> 미전달/FCM 우회
+    private final RelayFailureHandler relayFailureHandler;
 
-    public void relayMessageToServer (String targetServerHost, int targetServerPort, TalkMessageDTO messageDto, Long recipientId) {
-        String targetAddress = targetServerHost + ":" + targetServerPort;
-        ManagedChannel channel = channels.computeIfAbsent(targetAddress, key ->
-                ManagedChannelBuilder.forAddress(targetServerHost, targetServerPort)
-                        .usePlaintext()
-                        .build()
+    @Qualifier("relayScheduler")
+    private final ScheduledExecutorService relayScheduler;
+
+    // [신규] K: "host:port", V: 해당 피어와 유지 중인 양방향 스트림
+    private final Map<String, PeerRelayStream> streams = new ConcurrentHashMap<>();
+    // [신규] K: "host:port", V: 해당 피어로 가는 메시지를 모으는 비동기 배처
+    private final Map<String, PeerRelayBatcher> batchers = new ConcurrentHashMap<>();
+
+    /**
+     * [신규] 릴레이 진입점 - 설정된 모드(grpc.relay.mode)에 따라 전송
+     * STREAM / ASYNC_BATCH 모드에서는 호출 스레드가 원격 노드를 기다리지 않음
+     * @return [수정] 피어가 서킷 OPEN 상태이거나 전송에 실패하면 false (호출 측이 미전달/FCM 경로로 우회)
+     */
+    public boolean relay(PeerEndpoint target, TalkMessageDTO messageDto, byte[] payload, List<Long> recipientIds) {
+        return relayAll(target, List.of(new RelayEnvelope(messageDto, payload, recipientIds))) == 1;
+    }
+
+    /**
+     * [신규] 같은 피어로 가는 메시지 여러 개를 한 번에 릴레이 (Kafka 배치 소비 시 피어당 1회 호출)
+     * envelopes 순서대로 전송 (같은 채팅방 메시지 순서 유지)
+     * - 동기 RPC 폴백은 아무것도 적재하지 못했고 스트림/배처가 비어 있을 때만 (적재된 메시지를 추월하지 않도록)
+     * - 적재 이후의 비동기 실패는 RelayFailureHandler로 전달
+     * @return 앞에서부터 전송(또는 적재)에 성공한 개수 - 나머지는 호출 측이 미전달/FCM 경로로 우회
+     */
+    public int relayAll(PeerEndpoint target, List<RelayEnvelope> envelopes) {
+        PeerConnection peer = peerChannelPool.get(target);
+        if (!peer.isAvailable()) {
+            log.warn("gRPC 피어 {} 서킷 {} 상태, 릴레이 생략", peer.getAddress(), peer.getCircuitBreaker().getState());
+            return 0;
+        }
+
+        int accepted = 0;
+        if (relayProperties.getMode() == RelayMode.ASYNC_BATCH) {
+            PeerRelayBatcher batcher = getOrCreateBatcher(peer);
+            while (accepted < envelopes.size() && batcher.add(envelopes.get(accepted), buildBulkRequest(envelopes.get(accepted)))) accepted++;
+            if (accepted == envelopes.size()) return accepted;
+
+            // [수정] 앞부분만 적재됐거나 아직 보내지 못한 배치가 있으면 폴백하지 않음
+            //        (동기 RPC가 적재된 메시지를 추월하지 않도록) -> 나머지는 호출 측이 우회
+            if (accepted > 0 || !batcher.isIdle()) {
+                log.warn("gRPC batch to {} 대기 한도 초과, {}건 우회", peer.getAddress(), envelopes.size() - accepted);
+                return accepted;
+            }
+
+            log.warn("gRPC batch to {} 적재 실패, 동기 RPC로 폴백", peer.getAddress());
+        }
+        else if (relayProperties.getMode() == RelayMode.STREAM) {
+            PeerRelayStream stream = getOrOpenStream(peer);
+            while (accepted < envelopes.size() && stream.offer(envelopes.get(accepted))) accepted++;
+            if (accepted == envelopes.size()) return accepted;
+
+            // [수정] 스트림에 아직 보내지 못했거나 ack 받지 못한 프레임이 있으면 폴백하지 않음
+            //        (단건 RPC가 앞선 프레임을 추월하지 않도록) -> 나머지는 호출 측이 우회
+            if (accepted > 0 || !stream.isIdle()) {
+                log.warn("gRPC relayStream to {} 대기 큐 초과, {}건 우회", peer.getAddress(), envelopes.size() - accepted);
+                return accepted;
+            }
+
+            // 스트림이 비어 있는데 적재 실패 -> 동기 RPC로 폴백 (호출 스레드가 잠시 막히며 배압 역할)
+            log.warn("gRPC relayStream to {} 적재 실패, 동기 RPC로 폴백", peer.getAddress());
+        }
+
+        List<RelayEnvelope> rest = envelopes.subList(accepted, envelopes.size());
+        boolean sent = (rest.size() == 1)
+                ? relayBulkMessageToServer(peer, rest.get(0))
+                : relayBatchToServer(peer, rest);
+        return sent ? envelopes.size() : accepted;
+    }
+
+    private PeerRelayBatcher getOrCreateBatcher(PeerConnection peer) {
+        return batchers.computeIfAbsent(peer.getAddress(), key ->
+                new PeerRelayBatcher(peer, relayScheduler, relayProperties, relayFailureHandler, meterRegistry)
         );
+    }
+
+    private PeerRelayStream getOrOpenStream(PeerConnection peer) {
+        // 닫힌 스트림은 다음 전송 시 새로 연결
+        return streams.compute(peer.getAddress(), (key, stream) -> {
+            if (stream != null && !stream.isClosed()) return stream;
+            return new PeerRelayStream(
+                    peer,
+                    relayFailureHandler,
+                    relayProperties.getStreamMaxInFlight(),
+                    relayProperties.getStreamMaxPending()
+            );
+        });
+    }
+
+    /**
+     * [신규] 레지스트리에서 빠진 피어 정리 - 배처/스트림 제거 후 연결 종료
+     * 아직 전달이 확인되지 않은 메시지는 RelayFailureHandler로 우회
+     */
+    @EventListener
+    public void onPeerRemoved(PeerRemovedEvent event) {
+        String address = event.getAddress();
+
+        PeerRelayBatcher batcher = batchers.remove(address);
+        if (batcher != null) batcher.close();
+
+        PeerRelayStream stream = streams.remove(address);
+        if (stream != null) stream.cancel("피어 제거: " + address);
+
+        peerChannelPool.remove(address);
+    }
+
+    public void relayMessageToServer (PeerEndpoint target, TalkMessageDTO messageDto, Long recipientId) {
+        PeerConnection peer = peerChannelPool.get(target);
 
-        RelayMessageServiceGrpc.RelayMessageServiceBlockingStub stub = RelayMessageServiceGrpc.newBlockingStub(channel);
+        RelayMessageServiceGrpc.RelayMessageServiceBlockingStub stub = RelayMessageServiceGrpc.newBlockingStub(peer.nextChannel());
 
         RelayMessageRequest request = RelayMessageRequest.newBuilder()
                 .setSenderId(messageDto.getSenderId())
@@ -47,61 +160,89 @@ public class MessageRelayClient {
 
         try {
             RelayMessageResponse response = stub.relayMessage(request);
+            peer.recordSuccess();
             log.info("gRPC Relay Result: {}", response.getMessage());
 
         } catch (Exception e) {
-            log.error("gRPC request to {} failed: {}", targetAddress, e.getMessage());
-            channels.remove(targetAddress);
-            channel.shutdown();
+            log.error("gRPC request to {} failed: {}", peer.getAddress(), e.getMessage());
+            // [수정] 채널은 유지 (재연결은 채널 내부 backoff), 실패만 서킷 브레이커에 기록
+            peer.recordFailure();
         }
     }
 
     /**
      * [추가] 벌크 릴레이 메서드
      */
-    public void relayBulkMessageToServer(String targetServerHost, int targetServerPort, TalkMessageDTO messageDto, List<Long> recipientIds) {
-        String targetAddress = targetServerHost + ":" + targetServerPort;
-        ManagedChannel channel = channels.computeIfAbsent(targetAddress, key ->
-                ManagedChannelBuilder.forAddress(targetServerHost, targetServerPort)
-                        .usePlaintext()
-                        .build()
-        );
-
-        RelayMessageServiceGrpc.RelayMessageServiceBlockingStub stub = RelayMessageServiceGrpc.newBlockingStub(channel);
+    private boolean relayBulkMessageToServer(PeerConnection peer, RelayEnvelope envelope) {
+        RelayMessageServiceGrpc.RelayMessageServiceBlockingStub stub = RelayMessageServiceGrpc.newBlockingStub(peer.nextChannel());
 
         // [변경] RelayBulkMessageRequest 사용
-        RelayBulkMessageRequest request = RelayBulkMessageRequest.newBuilder()
-                .setSenderId(messageDto.getSenderId())
-                .setChatId(messageDto.getChatId())
-                .setContent(messageDto.getContent())
-                .setMessageType(messageDto.getType().name())
-                .setTimestamp(messageDto.getTimestamp().toString())
-                .addAllRecipientIds(recipientIds) // [변경] 단일 ID 대신 리스트(repeated) 추가
-                .build();
+        RelayBulkMessageRequest request = buildBulkRequest(envelope);
 
         try {
             // [변경] stub.relayBulkMessage 호출
             RelayMessageResponse response = stub.relayBulkMessage(request);
+            peer.recordSuccess();
             log.info("gRPC Bulk Relay Result: {}", response.getMessage());
+            return true;
+
+        } catch (Exception e) {
+            log.error("gRPC bulk request to {} failed: {}", peer.getAddress(), e.getMessage());
+            // [수정] 채널은 유지 (재연결은 채널 내부 backoff), 실패만 서킷 브레이커에 기록
+            peer.recordFailure();
+            return false;
+        }
+    }
+
+    /**
+     * [신규] 여러 메시지를 relayBatch 1회로 동기 전송
+     */
+    private boolean relayBatchToServer(PeerConnection peer, List<RelayEnvelope> envelopes) {
+        RelayBatchRequest.Builder request = RelayBatchRequest.newBuilder();
+        for (RelayEnvelope envelope : envelopes) {
+            request.addMessages(buildBulkRequest(envelope));
+        }
+
+        try {
+            RelayMessageResponse response = RelayMessageServiceGrpc.newBlockingStub(peer.nextChannel())
+                    .withDeadlineAfter(relayProperties.getBatchDeadlineMs(), TimeUnit.MILLISECONDS)
+                    .relayBatch(request.build());
+            peer.recordSuccess();
+            log.info("gRPC Batch Relay Result: {}", response.getMessage());
+            return true;
 
         } catch (Exception e) {
-            log.error("gRPC bulk request to {} failed: {}", targetAddress, e.getMessage());
-            // 채널에 문제가 생겼을 수 있으므로 제거 (다음 요청 시 새로 생성)
-            channels.remove(targetAddress);
-            channel.shutdown();
+            log.error("gRPC batch request to {} failed ({}건): {}", peer.getAddress(), envelopes.size(), e.getMessage());
+            peer.recordFailure();
+            return false;
         }
     }
 
+    private RelayBulkMessageRequest buildBulkRequest(RelayEnvelope envelope) {
+        TalkMessageDTO messageDto = envelope.getMessage();
+        return RelayBulkMessageRequest.newBuilder()
+                .setSenderId(messageDto.getSenderId())
+                .setChatId(messageDto.getChatId())
+                .setContent(messageDto.getContent())
+                .setMessageType(messageDto.getType().name())
+                .setTimestamp(messageDto.getTimestamp().toString())
+                .addAllRecipientIds(envelope.getRecipientIds()) // [변경] 단일 ID 대신 리스트(repeated) 추가
+                // [신규] 인코딩된 프레임을 복사 없이 감싸서 전달 (수신 노드는 재직렬화 없이 그대로 전송)
+                .setPayload(UnsafeByteOperations.unsafeWrap(envelope.getPayload()))
+                .build();
+    }
+
     @PreDestroy
     public void shutdownAllChannels() {
-        log.info("애플리케이션 종료: 모든 활성 gRPC 채널을 종료합니다...");
-        for (ManagedChannel channel : channels.values()) {
-            try {
-                channel.shutdown();
-            } catch (Exception e) {
-                log.error("gRPC 채널 종료 중 에러 발생", e);
-            }
+        // 채널 종료는 PeerChannelPool이 담당 (이 빈이 먼저 소멸되므로 남은 배치/스트림을 먼저 정리)
+        log.info("애플리케이션 종료: 대기 중인 gRPC 배치/스트림을 정리합니다...");
+        batchers.values().forEach(PeerRelayBatcher::flush);
+
+        // [수정] 모든 스트림을 먼저 half-close 한 뒤 같은 기한 안에서 마지막 ack를 기다림 (미확인분만 우회)
+        streams.values().forEach(PeerRelayStream::complete);
+        long deadline = System.currentTimeMillis() + relayProperties.getStreamCloseTimeoutMs();
+        for (PeerRelayStream stream : streams.values()) {
+            stream.awaitTermination(Math.max(0L, deadline - System.currentTimeMillis()));
         }
-        log.info("모든 gRPC 채널이 종료되었습니다.");
     }
 }
\ No newline at end of file
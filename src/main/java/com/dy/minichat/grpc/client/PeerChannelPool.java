@@ -0,0 +1,147 @@
+package com.dy.minichat.grpc.client;
+
+import com.dy.minichat.property.GrpcRelayProperties;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+    피어 노드별 gRPC 연결 풀
+
+    기존: 호출 실패 시 채널 제거 + shutdown -> 다음 메시지가 채널 생성 비용을 그대로 부담, 불안정한 피어는 채널을 계속 재생성
+    변경:
+    - 피어당 채널(서브채널 N개)을 한 번 만들고 계속 유지 (재연결은 gRPC 채널 내부 backoff에 맡김)
+    - keepalive로 끊어진 연결을 조기에 감지
+    - 주기적인 gRPC 헬스 체크(grpc.health.v1) + 호출 결과를 서킷 브레이커에 기록
+    - OPEN 상태 피어는 릴레이하지 않음 -> 호출 측이 미전달/FCM 경로로 우회
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PeerChannelPool {
+
+    private final GrpcRelayProperties properties;
+
+    @Qualifier("relayScheduler")
+    private final ScheduledExecutorService relayScheduler;
+
+    // K: "host:port", V: 피어 연결
+    private final Map<String, PeerConnection> peers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void startHealthCheck() {
+        long interval = properties.getHealthCheckIntervalMs();
+        relayScheduler.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public PeerConnection get(PeerEndpoint endpoint) {
+        return peers.computeIfAbsent(endpoint.getAddress(), address -> connect(address, endpoint.getHost(), endpoint.getPort()));
+    }
+
+    /**
+     * [신규] 레지스트리에서 빠진 피어의 연결 종료 (헬스 체크 대상에서도 제외)
+     * 진행 중인 호출은 마저 끝나고, 이후 같은 주소로 get 하면 새로 연결
+     */
+    public void remove(String address) {
+        PeerConnection peer = peers.remove(address);
+        if (peer == null) return;
+
+        log.info("gRPC 피어 연결 종료: {}", address);
+        try {
+            peer.shutdown();
+        } catch (Exception e) {
+            log.error("gRPC 채널 종료 중 에러 발생", e);
+        }
+    }
+
+    private PeerConnection connect(String address, String host, int port) {
+        List<ManagedChannel> subchannels = new ArrayList<>(properties.getSubchannelsPerPeer());
+        for (int i = 0; i < Math.max(1, properties.getSubchannelsPerPeer()); i++) {
+            subchannels.add(ManagedChannelBuilder.forAddress(host, port)
+                    .usePlaintext()
+                    .keepAliveTime(properties.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(properties.getKeepAliveTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .keepAliveWithoutCalls(true)
+                    .build());
+        }
+
+        log.info("gRPC 피어 연결 생성: {} (서브채널 {}개)", address, subchannels.size());
+        return new PeerConnection(
+                address,
+                subchannels,
+                new PeerCircuitBreaker(
+                        properties.getBreakerFailureThreshold(),
+                        properties.getBreakerBaseBackoffMs(),
+                        properties.getBreakerMaxBackoffMs()
+                )
+        );
+    }
+
+    private void checkHealth() {
+        long now = System.currentTimeMillis();
+        for (PeerConnection peer : peers.values()) {
+            PeerCircuitBreaker breaker = peer.getCircuitBreaker();
+
+            // OPEN 피어는 backoff가 지난 경우에만 프로브 (HALF_OPEN 전환)
+            if (breaker.getState() == PeerCircuitBreaker.State.OPEN && !breaker.tryHalfOpen(now)) continue;
+
+            probe(peer);
+        }
+    }
+
+    private void probe(PeerConnection peer) {
+        Futures.addCallback(
+                HealthGrpc.newFutureStub(peer.nextChannel())
+                        .withDeadlineAfter(properties.getHealthCheckTimeoutMs(), TimeUnit.MILLISECONDS)
+                        .check(HealthCheckRequest.getDefaultInstance()),
+                new FutureCallback<>() {
+                    @Override
+                    public void onSuccess(HealthCheckResponse response) {
+                        if (response.getStatus() == HealthCheckResponse.ServingStatus.SERVING) {
+                            if (!peer.isAvailable()) log.info("gRPC 피어 {} 복구 확인 -> 서킷 CLOSED", peer.getAddress());
+                            peer.recordSuccess();
+                        } else {
+                            log.warn("gRPC 피어 {} 헬스 상태: {}", peer.getAddress(), response.getStatus());
+                            peer.recordFailure();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        log.warn("gRPC 피어 {} 헬스 체크 실패: {}", peer.getAddress(), t.getMessage());
+                        peer.recordFailure();
+                    }
+                },
+                MoreExecutors.directExecutor()
+        );
+    }
+
+    @PreDestroy
+    public void shutdownAll() {
+        for (PeerConnection peer : peers.values()) {
+            try {
+                peer.shutdown();
+            } catch (Exception e) {
+                log.error("gRPC 채널 종료 중 에러 발생", e);
+            }
+        }
+    }
+}
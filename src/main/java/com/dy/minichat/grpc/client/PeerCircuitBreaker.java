@@ -0,0 +1,80 @@
+package com.dy.minichat.grpc.client;
+
+/*
+    피어 노드 단위 서킷 브레이커
+
+    CLOSED    : 정상. 연속 실패가 failureThreshold에 도달하면 OPEN
+    OPEN      : 릴레이 차단 (수신자는 미전달/FCM 경로로 우회). backoff 경과 후 헬스 체크가 HALF_OPEN으로 전환
+    HALF_OPEN : 헬스 체크 프로브 1회 진행 중. 성공 -> CLOSED, 실패 -> backoff 2배로 다시 OPEN (최대 maxBackoffMs)
+
+    상태 읽기(isClosed)는 메시지마다 호출되므로 volatile 읽기만 수행
+*/
+public class PeerCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long currentBackoffMs;
+    private long openUntil = 0;
+
+    public PeerCircuitBreaker(int failureThreshold, long baseBackoffMs, long maxBackoffMs) {
+        this.failureThreshold = failureThreshold;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.currentBackoffMs = baseBackoffMs;
+    }
+
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            currentBackoffMs = baseBackoffMs;
+        }
+    }
+
+    public synchronized void recordFailure(long now) {
+        switch (state) {
+            case HALF_OPEN:
+                // 프로브 실패 -> 재연결 간격을 지수적으로 늘림
+                trip(now, Math.min(currentBackoffMs * 2, maxBackoffMs));
+                break;
+            case CLOSED:
+                if (++consecutiveFailures >= failureThreshold) trip(now, baseBackoffMs);
+                break;
+            case OPEN:
+            default:
+                break;
+        }
+    }
+
+    /**
+     * OPEN 상태에서 backoff가 지났으면 HALF_OPEN으로 전환 (헬스 체크 프로브 허용)
+     */
+    public synchronized boolean tryHalfOpen(long now) {
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    private void trip(long now, long backoffMs) {
+        state = State.OPEN;
+        currentBackoffMs = backoffMs;
+        openUntil = now + backoffMs;
+        consecutiveFailures = 0;
+    }
+}
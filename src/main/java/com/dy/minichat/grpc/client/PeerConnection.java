@@ -0,0 +1,52 @@
+package com.dy.minichat.grpc.client;
+
+import io.grpc.ManagedChannel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    피어 노드 1개에 대한 연결 묶음
+    - subchannels: 병렬 전송용 채널 N개 (라운드 로빈)
+    - circuitBreaker: 피어 상태 (OPEN이면 릴레이 대신 우회)
+*/
+public class PeerConnection {
+
+    @Getter
+    private final String address;
+    private final List<ManagedChannel> subchannels;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Getter
+    private final PeerCircuitBreaker circuitBreaker;
+
+    public PeerConnection(String address, List<ManagedChannel> subchannels, PeerCircuitBreaker circuitBreaker) {
+        this.address = address;
+        this.subchannels = subchannels;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public ManagedChannel nextChannel() {
+        if (subchannels.size() == 1) return subchannels.get(0);
+        return subchannels.get(Math.floorMod(cursor.getAndIncrement(), subchannels.size()));
+    }
+
+    public boolean isAvailable() {
+        return circuitBreaker.isClosed();
+    }
+
+    public void recordSuccess() {
+        circuitBreaker.recordSuccess();
+    }
+
+    public void recordFailure() {
+        circuitBreaker.recordFailure(System.currentTimeMillis());
+    }
+
+    public void shutdown() {
+        for (ManagedChannel channel : subchannels) {
+            channel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dy.minichat.grpc.client;
+
+import lombok.Getter;
+
+/*
+    미리 파싱해 둔 피어 노드 gRPC 주소 (릴레이 경로에서 문자열 파싱 없음)
+*/
+@Getter
+public class PeerEndpoint {
+
+    private final String serverId;
+    private final String host;
+    private final int port;
+    // "host:port" - 연결 풀 / 배처 / 스트림 맵의 키
+    private final String address;
+
+    public PeerEndpoint(String serverId, String host, int port) {
+        this.serverId = serverId;
+        this.host = host;
+        this.port = port;
+        this.address = host + ":" + port;
+    }
+
+    /**
+     * "host:port" 형식 파싱 (등록/이벤트 수신 시 1회만 수행)
+     * @return 형식이 올바르지 않으면 null
+     */
+    public static PeerEndpoint parse(String serverId, String address) {
+        if (address == null) return null;
+        int idx = address.lastIndexOf(':');
+        if (idx <= 0 || idx == address.length() - 1) return null;
+        try {
+            return new PeerEndpoint(serverId, address.substring(0, idx), Integer.parseInt(address.substring(idx + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PeerEndpoint other)) return false;
+        return serverId.equals(other.serverId) && address.equals(other.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * serverId.hashCode() + address.hashCode();
+    }
+}
@@ -0,0 +1,199 @@
+package com.dy.minichat.grpc.client;
+
+import com.dy.grpc.proto.RelayBatchRequest;
+import com.dy.grpc.proto.RelayBulkMessageRequest;
+import com.dy.grpc.proto.RelayMessageResponse;
+import com.dy.grpc.proto.RelayMessageServiceGrpc;
+import com.dy.minichat.property.GrpcRelayProperties;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+    피어 노드 1개에 대한 비동기 마이크로 배처 (ASYNC_BATCH 모드)
+
+    - 같은 피어로 가는 메시지를 batchWindowMs 동안 또는 batchMaxMessages개까지 모아 relayBatch 1회로 전송
+    - future stub 사용 -> 호출 스레드(Kafka 컨슈머)는 적재 후 즉시 반환
+    - [수정] 피어당 응답 대기 배치는 1개 - 응답 전에는 계속 모았다가 응답 직후 보냄 (느린 피어일수록 배치가 커짐)
+      배치 여러 개가 다른 서브채널/서버 스레드에서 동시에 처리되면 같은 채팅방 메시지 순서가 뒤바뀔 수 있으므로
+    - [수정] 배치 RPC 실패 시 배치의 메시지를 RelayFailureHandler로 넘김 (미전달/FCM 우회)
+
+    메트릭 (tag: peer)
+    - minichat.relay.batch.queued : [수정] 전송 대기 중인 메시지 수 (응답 대기 배치는 피어당 최대 1개이므로 대기 메시지 수로 대체)
+    - minichat.relay.batch.size   : 배치당 메시지 수
+    - minichat.relay.batch.latency: 배치 RPC 왕복 시간
+*/
+@Slf4j
+public class PeerRelayBatcher {
+
+    private final String targetAddress;
+    private final PeerConnection peer;
+    private final ScheduledExecutorService scheduler;
+    private final GrpcRelayProperties properties;
+    private final RelayFailureHandler failureHandler;
+
+    private final MeterRegistry meterRegistry;
+    private final Gauge queued;
+    private final DistributionSummary batchSize;
+    private final Timer latency;
+
+    // 아래 상태는 모두 this 락 안에서만 접근 (envelopes와 requests는 같은 순서)
+    private final List<RelayEnvelope> envelopes = new ArrayList<>();
+    private final List<RelayBulkMessageRequest> buffer = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean sending = false;
+    private boolean closed = false;
+
+    public PeerRelayBatcher(PeerConnection peer, ScheduledExecutorService scheduler, GrpcRelayProperties properties,
+                            RelayFailureHandler failureHandler, MeterRegistry meterRegistry) {
+        this.targetAddress = peer.getAddress();
+        this.peer = peer;
+        this.scheduler = scheduler;
+        this.properties = properties;
+        this.failureHandler = failureHandler;
+        this.meterRegistry = meterRegistry;
+
+        this.queued = Gauge.builder("minichat.relay.batch.queued", this, PeerRelayBatcher::queuedCount)
+                .tag("peer", targetAddress)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("minichat.relay.batch.size")
+                .tag("peer", targetAddress)
+                .register(meterRegistry);
+        this.latency = Timer.builder("minichat.relay.batch.latency")
+                .tag("peer", targetAddress)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메시지 적재 (non-blocking)
+     * @return 대기 메시지가 batchMaxPending을 넘었거나 닫힌 배처면 false (호출 측 폴백)
+     */
+    public synchronized boolean add(RelayEnvelope envelope, RelayBulkMessageRequest message) {
+        if (closed || buffer.size() >= properties.getBatchMaxPending()) return false;
+
+        envelopes.add(envelope);
+        buffer.add(message);
+        if (buffer.size() >= properties.getBatchMaxMessages()) {
+            flushLocked();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flush, properties.getBatchWindowMs(), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    public synchronized void flush() {
+        flushLocked();
+    }
+
+    /**
+     * 대기 중이거나 응답 대기 중인 배치가 없는지 - 동기 RPC 폴백은 이때만 허용 (앞선 배치를 추월하지 않도록)
+     */
+    public synchronized boolean isIdle() {
+        return buffer.isEmpty() && !sending;
+    }
+
+    /**
+     * [신규] 피어 제거 시 호출 - 아직 보내지 않은 메시지는 RelayFailureHandler로 넘김
+     * 응답 대기 중인 배치는 기존 콜백이 마저 처리 (실패하면 그쪽에서 우회)
+     */
+    public void close() {
+        List<RelayEnvelope> failed;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            failed = new ArrayList<>(envelopes);
+            envelopes.clear();
+            buffer.clear();
+        }
+
+        // 제거된 피어의 메트릭도 정리 (같은 주소로 다시 연결되면 새 배처가 다시 등록)
+        for (Meter meter : List.of(queued, batchSize, latency)) {
+            meterRegistry.remove(meter);
+        }
+
+        if (!failed.isEmpty()) {
+            log.warn("gRPC batch to {} 피어 제거로 미전송 메시지 {}건 우회", targetAddress, failed.size());
+            failureHandler.onRelayFailed(targetAddress, failed);
+        }
+    }
+
+    private synchronized int queuedCount() {
+        return buffer.size();
+    }
+
+    private void flushLocked() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (buffer.isEmpty()) return;
+
+        // 응답 대기 중인 배치가 있으면 더 모았다가 응답 직후 전송 (onComplete)
+        if (sending) return;
+
+        // 배치당 최대 batchMaxMessages개 (응답 대기 중 쌓인 나머지는 다음 응답 직후 전송)
+        int size = Math.min(buffer.size(), properties.getBatchMaxMessages());
+        List<RelayEnvelope> batchEnvelopes = new ArrayList<>(envelopes.subList(0, size));
+        List<RelayBulkMessageRequest> batch = new ArrayList<>(buffer.subList(0, size));
+        envelopes.subList(0, size).clear();
+        buffer.subList(0, size).clear();
+        sending = true;
+        send(batchEnvelopes, batch);
+    }
+
+    // 응답(성공/실패) 후 그동안 모인 메시지 전송
+    private synchronized void onComplete() {
+        sending = false;
+        flushLocked();
+    }
+
+    private void send(List<RelayEnvelope> batchEnvelopes, List<RelayBulkMessageRequest> batch) {
+        RelayBatchRequest request = RelayBatchRequest.newBuilder()
+                .addAllMessages(batch)
+                .build();
+
+        batchSize.record(batch.size());
+        long startNanos = System.nanoTime();
+
+        // 배치마다 서브채널을 돌아가며 사용 (동시에 1개만 보내므로 순서는 유지됨)
+        ListenableFuture<RelayMessageResponse> future = RelayMessageServiceGrpc.newFutureStub(peer.nextChannel())
+                .withDeadlineAfter(properties.getBatchDeadlineMs(), TimeUnit.MILLISECONDS)
+                .relayBatch(request);
+
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(RelayMessageResponse response) {
+                latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                peer.recordSuccess();
+                log.debug("gRPC Batch Relay Result: {}", response.getMessage());
+                onComplete();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                peer.recordFailure();
+                log.error("gRPC batch request to {} failed ({}건): {}", targetAddress, batch.size(), t.getMessage());
+                failureHandler.onRelayFailed(targetAddress, batchEnvelopes);
+                onComplete();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+}
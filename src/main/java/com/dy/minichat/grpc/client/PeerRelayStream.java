@@ -0,0 +1,212 @@
+package com.dy.minichat.grpc.client;
+
+import com.dy.grpc.proto.RelayAck;
+import com.dy.grpc.proto.RelayFrame;
+import com.dy.grpc.proto.RelayMessageServiceGrpc;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    피어 노드 1개와 유지하는 장기 양방향 스트림 (relayStream)
+
+    - 호출 스레드(Kafka 컨슈머)는 큐에 넣고 바로 반환 -> 원격 노드 응답을 기다리지 않음
+    - 전송은 두 가지 조건을 모두 만족할 때만 진행 (흐름 제어)
+        1) gRPC 전송 버퍼 여유 (isReady)
+        2) 아직 ack 받지 못한 프레임 수 < maxInFlight
+    - 대기 큐가 maxPending을 넘으면 offer 실패 -> 호출 측이 나머지를 우회 (자연스러운 배압)
+    - [수정] 스트림 종료 시 대기 중 + 전송했지만 ack 받지 못한 프레임을 RelayFailureHandler로 넘김 (미전달/FCM 우회)
+      수신 노드가 처리한 뒤 ack 전에 끊기면 중복 푸시가 생길 수 있음 (유실보다 중복)
+    - [수정] 정상 종료(complete): 새 프레임은 받지 않고 대기 큐를 모두 보낸 뒤 half-close
+      -> 수신 노드가 마지막 ack + onCompleted로 응답할 때까지 awaitTermination으로 기다림
+      -> 기한 안에 ack 받지 못한 프레임만 우회 (재배포마다 이미 전달된 메시지가 중복 푸시되지 않도록)
+*/
+@Slf4j
+public class PeerRelayStream {
+
+    private final String targetAddress;
+    private final PeerConnection peer;
+    private final RelayFailureHandler failureHandler;
+    private final int maxInFlight;
+    private final int maxPending;
+
+    // 아래 상태는 모두 this 락 안에서만 접근
+    private final ArrayDeque<RelayEnvelope> pending = new ArrayDeque<>();
+    // 전송했지만 ack 받지 못한 프레임 (seq 오름차순)
+    private final ArrayDeque<SentFrame> unacked = new ArrayDeque<>();
+
+    private ClientCallStreamObserver<RelayFrame> requestStream;
+    private long nextSeq = 1;
+    private boolean completing = false;
+    private boolean halfClosed = false;
+    private volatile boolean closed = false;
+
+    public PeerRelayStream(PeerConnection peer, RelayFailureHandler failureHandler, int maxInFlight, int maxPending) {
+        this.targetAddress = peer.getAddress();
+        this.peer = peer;
+        this.failureHandler = failureHandler;
+        this.maxInFlight = maxInFlight;
+        this.maxPending = maxPending;
+
+        RelayMessageServiceGrpc.newStub(peer.nextChannel()).relayStream(new ClientResponseObserver<RelayFrame, RelayAck>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<RelayFrame> stream) {
+                requestStream = stream;
+                // 전송 버퍼에 여유가 생기면 대기 중인 프레임 전송 재개
+                stream.setOnReadyHandler(PeerRelayStream.this::drain);
+            }
+
+            @Override
+            public void onNext(RelayAck ack) {
+                acknowledge(ack.getAckedSeq());
+                peer.recordSuccess();
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("gRPC relayStream to {} 실패: {}", targetAddress, t.getMessage());
+                peer.recordFailure();
+                close();
+            }
+
+            @Override
+            public void onCompleted() {
+                close();
+            }
+        });
+    }
+
+    /**
+     * 프레임 적재 (non-blocking)
+     * @return 스트림이 닫혔거나 대기 큐가 가득 차면 false
+     */
+    public synchronized boolean offer(RelayEnvelope envelope) {
+        if (closed || completing || pending.size() >= maxPending) return false;
+
+        pending.add(envelope);
+        drain();
+        return true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 대기 중이거나 ack 대기 중인 프레임이 없는지 - 단건 RPC 폴백은 이때만 허용 (앞선 프레임을 추월하지 않도록)
+     */
+    public synchronized boolean isIdle() {
+        return pending.isEmpty() && unacked.isEmpty();
+    }
+
+    /**
+     * 정상 종료 시작 (non-blocking) - 이후 offer는 실패, 대기 큐를 다 보내면 half-close
+     */
+    public synchronized void complete() {
+        if (closed || completing) return;
+        completing = true;
+        drain();
+    }
+
+    /**
+     * complete 이후 수신 노드가 스트림을 닫을 때까지 최대 timeoutMs 대기
+     * 기한이 지나면 스트림을 닫고 ack 받지 못한 프레임은 RelayFailureHandler로 넘김
+     */
+    public void awaitTermination(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean timedOut;
+        synchronized (this) {
+            long remaining;
+            while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            timedOut = !closed;
+        }
+        if (!timedOut) return;
+
+        log.warn("gRPC relayStream to {} 종료 대기 시간 초과", targetAddress);
+        cancel("relayStream 종료 대기 시간 초과");
+    }
+
+    /**
+     * [신규] 즉시 종료 - ack 받지 못한 프레임과 대기 큐는 RelayFailureHandler로 넘김
+     */
+    public void cancel(String reason) {
+        close();
+        requestStream.cancel(reason, null);
+    }
+
+    // StreamObserver.onNext는 thread-safe 하지 않으므로 전송은 항상 락 안에서 수행
+    private synchronized void drain() {
+        if (closed) return;
+
+        while (requestStream.isReady() && unacked.size() < maxInFlight) {
+            RelayEnvelope envelope = pending.poll();
+            if (envelope == null) break;
+
+            long seq = nextSeq++;
+            unacked.add(new SentFrame(seq, envelope));
+            requestStream.onNext(RelayFrame.newBuilder()
+                    .setSeq(seq)
+                    .setChatId(envelope.getMessage().getChatId())
+                    .setPayload(UnsafeByteOperations.unsafeWrap(envelope.getPayload()))
+                    .addAllRecipientIds(envelope.getRecipientIds())
+                    .build());
+        }
+
+        // 정상 종료 중 대기 큐를 다 보냈으면 half-close -> 수신 노드가 마지막 ack 후 스트림을 닫음
+        if (completing && !halfClosed && pending.isEmpty()) {
+            halfClosed = true;
+            requestStream.onCompleted();
+        }
+    }
+
+    private synchronized void acknowledge(long ackedSeq) {
+        while (!unacked.isEmpty() && unacked.peek().seq <= ackedSeq) {
+            unacked.poll();
+        }
+    }
+
+    private void close() {
+        List<RelayEnvelope> failed;
+        synchronized (this) {
+            if (closed && pending.isEmpty() && unacked.isEmpty()) return;
+            closed = true;
+
+            // 전송 순서대로 (ack 대기 -> 대기 큐)
+            failed = new ArrayList<>(unacked.size() + pending.size());
+            unacked.forEach(frame -> failed.add(frame.envelope));
+            failed.addAll(pending);
+            unacked.clear();
+            pending.clear();
+            notifyAll();
+        }
+
+        if (!failed.isEmpty()) {
+            log.warn("gRPC relayStream to {} 종료로 미확인 프레임 {}개 우회", targetAddress, failed.size());
+            failureHandler.onRelayFailed(targetAddress, failed);
+        }
+    }
+
+    private static final class SentFrame {
+        private final long seq;
+        private final RelayEnvelope envelope;
+
+        private SentFrame(long seq, RelayEnvelope envelope) {
+            this.seq = seq;
+            this.envelope = envelope;
+        }
+    }
+}
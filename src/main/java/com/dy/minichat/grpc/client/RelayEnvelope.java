@@ -0,0 +1,19 @@
+package com.dy.minichat.grpc.client;
+
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+    피어 노드 1개로 보낼 릴레이 단위 (메시지 1개 + 그 노드에 연결된 수신자 목록)
+    payload: 프로듀서가 인코딩한 와이어 프레임 (재직렬화 없이 그대로 전달)
+*/
+@Getter
+@AllArgsConstructor
+public class RelayEnvelope {
+    private final TalkMessageDTO message;
+    private final byte[] payload;
+    private final List<Long> recipientIds;
+}
@@ -0,0 +1,13 @@
+package com.dy.minichat.grpc.client;
+
+import java.util.List;
+
+/*
+    릴레이 실패 처리 (비동기 전송 실패 포함)
+    - STREAM / ASYNC_BATCH 모드는 적재 이후에 실패할 수 있으므로 실패한 envelope를 여기로 넘김
+    - 구현체가 미전달/FCM 경로로 우회
+*/
+public interface RelayFailureHandler {
+
+    void onRelayFailed(String peerAddress, List<RelayEnvelope> envelopes);
+}
@@ -1,23 +1,35 @@
 package com.dy.minichat.grpc.server;
 
+import com.dy.grpc.proto.RelayAck;
+import com.dy.grpc.proto.RelayBatchRequest;
 import com.dy.grpc.proto.RelayBulkMessageRequest;
+import com.dy.grpc.proto.RelayFrame;
 import com.dy.grpc.proto.RelayMessageRequest;
 import com.dy.grpc.proto.RelayMessageResponse;
 import com.dy.grpc.proto.RelayMessageServiceGrpc;
+import com.dy.minichat.component.OutboundMessageDispatcher;
 import com.dy.minichat.component.WebSocketSessionManager;
+import com.dy.minichat.dto.message.TalkMessageDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @GrpcService // gRPC 서비스임을 나타내는 어노테이션
@@ -25,7 +37,19 @@ import java.util.Map;
 public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServiceImplBase {
 
     private final WebSocketSessionManager sessionManager;
+    private final OutboundMessageDispatcher outboundMessageDispatcher;
+
+    // [신규] 트래픽이 멈춰도 마지막 프레임들의 ack가 나가도록 주기 ack
+    @Qualifier("relayScheduler")
+    private final ScheduledExecutorService relayScheduler;
+
     private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectReader sourceReader = objectMapper.readerFor(TalkMessageDTO.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // 스트림 ack 묶음 단위 (송신 측 in-flight 윈도우보다 충분히 작아야 함)
+    private static final int STREAM_ACK_BATCH = 64;
+    private static final long STREAM_ACK_INTERVAL_MS = 20;
 
     @Override
     public void relayMessage(RelayMessageRequest request, StreamObserver<RelayMessageResponse> responseObserver) {
@@ -40,7 +64,7 @@ public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServ
                 // 서버 간 통신이므로, 클라이언트가 보낸 DTO와 동일한 구조를 만들어줌.
                 String messagePayload = buildMessagePayload(request);
 
-                receiverSession.sendMessage(new TextMessage(messagePayload));
+                outboundMessageDispatcher.send(receiverSession, new TextMessage(messagePayload), toSource(request));
                 log.info("gRPC -> WebSocket 메시지 릴레이 성공. 수신자 ID: {}", recipientId);
 
                 // 성공 응답 전송
@@ -51,7 +75,7 @@ public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServ
                 responseObserver.onNext(response);
                 responseObserver.onCompleted();
 
-            } catch (IOException e) {
+            } catch (JsonProcessingException e) {
                 log.error("gRPC -> WebSocket 메시지 전송 실패. 수신자 ID: {}", recipientId, e);
                 // 실패 응답 전송
                 responseObserver.onError(e);
@@ -85,17 +109,58 @@ public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServ
     public void relayBulkMessage(RelayBulkMessageRequest request, StreamObserver<RelayMessageResponse> responseObserver) {
         log.info("gRPC relayBulkMessage 요청 수신: {} 명", request.getRecipientIdsCount());
 
-        String messagePayload;
+        int successCount;
         try {
-            // 메시지 페이로드는 한 번만 생성
-            messagePayload = buildMessagePayload(request);
+            successCount = deliverLocally(request);
         } catch (JsonProcessingException e) {
             log.error("gRPC Bulk -> WebSocket 페이로드 빌드 실패", e);
             responseObserver.onError(e);
             return;
         }
 
-        TextMessage textMessage = new TextMessage(messagePayload);
+        log.info("gRPC Bulk 릴레이 완료. 총 {}명 중 {}명에게 로컬 전송 성공.", request.getRecipientIdsCount(), successCount);
+
+        RelayMessageResponse response = RelayMessageResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Message relayed to " + successCount + " users locally.")
+                .build();
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * [신규] 마이크로 배치 릴레이 - 같은 피어에서 짧은 윈도우 동안 모인 메시지들을 순서대로 처리
+     */
+    @Override
+    public void relayBatch(RelayBatchRequest request, StreamObserver<RelayMessageResponse> responseObserver) {
+        int successCount = 0;
+        for (RelayBulkMessageRequest message : request.getMessagesList()) {
+            try {
+                successCount += deliverLocally(message);
+            } catch (JsonProcessingException e) {
+                log.error("gRPC Batch -> WebSocket 페이로드 빌드 실패. ChatId: {}", message.getChatId(), e);
+            }
+        }
+        log.debug("gRPC Batch 릴레이 완료. 메시지 {}건, 로컬 전송 {}건", request.getMessagesCount(), successCount);
+
+        responseObserver.onNext(RelayMessageResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("Batch of " + request.getMessagesCount() + " relayed to " + successCount + " sessions locally.")
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    // 벌크 메시지 1건을 로컬 세션 송신 큐에 적재하고 성공 수 반환
+    private int deliverLocally(RelayBulkMessageRequest request) throws JsonProcessingException {
+        TextMessage textMessage;
+        if (!request.getPayload().isEmpty()) {
+            // [신규] 송신 노드가 인코딩한 프레임을 그대로 사용 (Map 재구성 + Jackson 재실행 없음)
+            textMessage = new TextMessage(request.getPayload().toByteArray());
+        } else {
+            // payload가 없는 구버전 노드의 요청만 재구성
+            textMessage = new TextMessage(buildMessagePayload(request));
+        }
+        TalkMessageDTO source = toSource(request);
         int successCount = 0;
 
         // [핵심] 수신된 ID 목록을 순회하며 *로컬 세션*에 전송
@@ -103,25 +168,14 @@ public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServ
             WebSocketSession receiverSession = sessionManager.getSession(recipientId);
 
             if (receiverSession != null && receiverSession.isOpen()) {
-                try {
-                    receiverSession.sendMessage(textMessage);
-                    successCount++;
-                } catch (IOException e) {
-                    log.warn("gRPC Bulk -> WebSocket 메시지 전송 실패. 수신자 ID: {}", recipientId, e);
-                }
+                // 송신 큐 적재까지만 수행 - 느린 소켓 때문에 gRPC 스레드가 막히지 않음
+                outboundMessageDispatcher.send(receiverSession, textMessage, source);
+                successCount++;
             } else {
                 log.warn("메시지를 수신할 세션이 없습니다 (벌크). 수신자 ID: {}", recipientId);
             }
         }
-
-        log.info("gRPC Bulk 릴레이 완료. 총 {}명 중 {}명에게 로컬 전송 성공.", request.getRecipientIdsCount(), successCount);
-
-        RelayMessageResponse response = RelayMessageResponse.newBuilder()
-                .setSuccess(true)
-                .setMessage("Message relayed to " + successCount + " users locally.")
-                .build();
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+        return successCount;
     }
 
 
@@ -136,4 +190,160 @@ public class MessageRelayServer extends RelayMessageServiceGrpc.RelayMessageServ
         );
         return objectMapper.writeValueAsString(payloadMap);
     }
+
+    /*
+        [수정] 송신 큐 초과 시 미전달 저장소/FCM으로 우회할 원본 메시지
+        OutboundMessageDispatcher(DIVERT_UNDELIVERED)는 원본이 없으면 프레임을 버리므로 릴레이 수신분도 원본을 함께 넘김
+    */
+    private TalkMessageDTO toSource(RelayMessageRequest request) {
+        return toSource(request.getSenderId(), request.getChatId(), request.getContent(),
+                request.getMessageType(), request.getTimestamp());
+    }
+
+    private TalkMessageDTO toSource(RelayBulkMessageRequest request) {
+        return toSource(request.getSenderId(), request.getChatId(), request.getContent(),
+                request.getMessageType(), request.getTimestamp());
+    }
+
+    // 스트림 프레임에는 필드가 없으므로 송신 노드가 인코딩한 TalkMessageDTO 프레임을 파싱
+    private TalkMessageDTO toSource(RelayFrame frame) {
+        try {
+            return sourceReader.readValue(frame.getPayload().newInput());
+        } catch (IOException e) {
+            log.warn("gRPC relayStream 프레임 원본 파싱 실패 (송신 큐 초과 시 우회 불가). ChatId: {}", frame.getChatId());
+            return null;
+        }
+    }
+
+    private TalkMessageDTO toSource(long senderId, long chatId, String content, String messageType, String timestamp) {
+        TalkMessageDTO.MessageType type;
+        try {
+            type = TalkMessageDTO.MessageType.valueOf(messageType);
+        } catch (IllegalArgumentException e) {
+            type = TalkMessageDTO.MessageType.TALK;
+        }
+        Instant sentAt;
+        try {
+            sentAt = Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            sentAt = null;
+        }
+        return TalkMessageDTO.builder()
+                .senderId(senderId)
+                .chatId(chatId)
+                .content(content)
+                .type(type)
+                .timestamp(sentAt)
+                .build();
+    }
+
+    /**
+     * [신규] 양방향 스트림 릴레이
+     * - 송신 노드는 피어당 스트림 하나를 유지하며 프레임을 연속으로 밀어넣음
+     * - 수신 측은 로컬 송신 큐 적재까지만 하고, ack는 STREAM_ACK_BATCH개 또는 STREAM_ACK_INTERVAL_MS마다 묶어서 응답
+     * - [수정] 시간 기준 ack는 타이머로도 보냄 (프레임이 더 오지 않아도 마지막 프레임까지 ack)
+     *   responseObserver는 thread-safe 하지 않으므로 ack 전송은 observer 락 안에서만
+     */
+    @Override
+    public StreamObserver<RelayFrame> relayStream(StreamObserver<RelayAck> responseObserver) {
+        log.info("gRPC relayStream 스트림 열림");
+
+        StreamAcker acker = new StreamAcker(responseObserver);
+        acker.timer = relayScheduler.scheduleWithFixedDelay(
+                acker::flushIfDue, STREAM_ACK_INTERVAL_MS, STREAM_ACK_INTERVAL_MS, TimeUnit.MILLISECONDS
+        );
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(RelayFrame frame) {
+                TextMessage textMessage = new TextMessage(frame.getPayload().toByteArray());
+
+                // 원본은 로컬 수신자가 있을 때만 프레임당 1회 파싱
+                TalkMessageDTO source = null;
+                int delivered = 0;
+                for (Long recipientId : frame.getRecipientIdsList()) {
+                    WebSocketSession receiverSession = sessionManager.getSession(recipientId);
+                    if (receiverSession != null && receiverSession.isOpen()) {
+                        if (source == null) source = toSource(frame);
+                        outboundMessageDispatcher.send(receiverSession, textMessage, source);
+                        delivered++;
+                    }
+                }
+                acker.received(frame.getSeq(), delivered);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                acker.stop();
+                log.warn("gRPC relayStream 스트림 비정상 종료: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                long lastSeq = acker.finish();
+                log.info("gRPC relayStream 스트림 정상 종료. 마지막 seq: {}", lastSeq);
+            }
+        };
+    }
+
+    // 스트림 1개의 ack 상태 - gRPC 수신 스레드와 타이머 스레드가 함께 접근
+    private static final class StreamAcker {
+        private final StreamObserver<RelayAck> responseObserver;
+        private volatile ScheduledFuture<?> timer;
+
+        private long lastSeq = 0;
+        private long lastAckedSeq = 0;
+        private long lastAckAt = System.currentTimeMillis();
+        private int deliveredSinceAck = 0;
+        private boolean done = false;
+
+        private StreamAcker(StreamObserver<RelayAck> responseObserver) {
+            this.responseObserver = responseObserver;
+        }
+
+        private synchronized void received(long seq, int delivered) {
+            lastSeq = seq;
+            deliveredSinceAck += delivered;
+
+            long now = System.currentTimeMillis();
+            if (lastSeq - lastAckedSeq >= STREAM_ACK_BATCH || now - lastAckAt >= STREAM_ACK_INTERVAL_MS) {
+                sendAck(now);
+            }
+        }
+
+        private synchronized void flushIfDue() {
+            if (done || lastSeq <= lastAckedSeq) return;
+            try {
+                sendAck(System.currentTimeMillis());
+            } catch (Exception e) {
+                // 스트림이 이미 끊긴 경우 - 타이머 정리
+                log.debug("gRPC relayStream 주기 ack 실패: {}", e.getMessage());
+                stop();
+            }
+        }
+
+        private synchronized long finish() {
+            if (!done) {
+                if (lastSeq > lastAckedSeq) sendAck(System.currentTimeMillis());
+                responseObserver.onCompleted();
+            }
+            stop();
+            return lastSeq;
+        }
+
+        private synchronized void stop() {
+            done = true;
+            if (timer != null) timer.cancel(false);
+        }
+
+        private void sendAck(long now) {
+            responseObserver.onNext(RelayAck.newBuilder()
+                    .setAckedSeq(lastSeq)
+                    .setDelivered(deliveredSinceAck)
+                    .build());
+            lastAckedSeq = lastSeq;
+            lastAckAt = now;
+            deliveredSinceAck = 0;
+        }
+    }
 }
@@ -1,24 +1,33 @@
 package com.dy.minichat.handler;
 
+import com.dy.minichat.component.BroadcastRoute;
+import com.dy.minichat.component.BroadcastRouter;
+import com.dy.minichat.component.ChatMembershipIndex;
+import com.dy.minichat.component.NodeRegistry;
+import com.dy.minichat.component.OutboundMessageDispatcher;
+import com.dy.minichat.component.ReadReceiptBroadcaster;
+import com.dy.minichat.component.UserPresenceResolver;
 import com.dy.minichat.component.WebSocketSessionManager;
-import com.dy.minichat.config.id.UndeliveredMessageIdGenerator;
+import com.dy.minichat.config.id.MessageIdGenerator;
 import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.dto.request.LastReadMessageRequestDTO;
 import com.dy.minichat.dto.request.MessageRequestDTO;
-import com.dy.minichat.entity.UndeliveredMessage;
 import com.dy.minichat.event.MessageSendEvent;
 import com.dy.minichat.grpc.client.MessageRelayClient;
+import com.dy.minichat.grpc.client.PeerEndpoint;
+import com.dy.minichat.grpc.client.RelayEnvelope;
+import com.dy.minichat.grpc.client.RelayFailureHandler;
 import com.dy.minichat.kafka.producer.ChatMessageProducer;
-import com.dy.minichat.property.GrpcServerProperties;
-import com.dy.minichat.repository.UndeliveredMessageRepository;
-import com.dy.minichat.service.ChatService;
-import com.dy.minichat.service.FcmPushService;
+import com.dy.minichat.property.MessageWriteBehindProperties;
 import com.dy.minichat.service.MessageService;
+import com.dy.minichat.service.UndeliveredMessageService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -26,7 +35,6 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.util.concurrent.Executor;
-import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -38,11 +46,10 @@ public class WebSocketHandler extends TextWebSocketHandler {
 
     private final ObjectMapper objectMapper;
 
-    private final ChatService chatService;
     private final MessageService messageService;
-    private final FcmPushService fcmPushService;
-    private final UndeliveredMessageRepository undeliveredMessageRepository;
-    private final UndeliveredMessageIdGenerator undeliveredMessageIdGenerator;
+    private final MessageIdGenerator messageIdGenerator;
+    private final MessageWriteBehindProperties writeBehindProperties;
+    private final UndeliveredMessageService undeliveredMessageService;
 
     @Qualifier("redisTemplateForString")
     private final RedisTemplate<String, String> redisTemplateForString;
@@ -53,7 +60,9 @@ public class WebSocketHandler extends TextWebSocketHandler {
     private final ChatMessageProducer chatMessageProducer;
 
     private final MessageRelayClient messageRelayClient; // gRPC 클라이언트 주입
-    private final GrpcServerProperties grpcServerProperties; // gRPC 서버 주소록 주입
+    private final RelayFailureHandler relayFailureHandler; // [신규] 릴레이 실패 -> 미전달/FCM 우회 (비동기 실패와 같은 경로)
+    // [수정] 정적 주소록(GrpcServerProperties) 대신 Redis 기반 노드 레지스트리 (파싱된 피어 테이블)
+    private final NodeRegistry nodeRegistry;
 
     /*
         웹소켓 세션을 중앙에서 관리하는 WebSocketSessionManager 주입
@@ -61,6 +70,16 @@ public class WebSocketHandler extends TextWebSocketHandler {
     */
     private final WebSocketSessionManager sessionManager;
 
+    // 모든 로컬 전송은 세션별 송신 큐를 거친다 (session.sendMessage 직접 호출 금지)
+    private final OutboundMessageDispatcher outboundMessageDispatcher;
+
+    private final BroadcastRouter broadcastRouter;
+    private final ChatMembershipIndex chatMembershipIndex;
+    private final UserPresenceResolver userPresenceResolver;
+
+    // [신규] 읽음 확인을 채팅방별로 모아 주기적으로 방송
+    private final ReadReceiptBroadcaster readReceiptBroadcaster;
+
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -96,6 +115,7 @@ public class WebSocketHandler extends TextWebSocketHandler {
                 // redis - user : server
                 String redisKey = USER_SERVER_KEY_PREFIX + userId;
                 redisTemplateForString.opsForValue().set(redisKey, serverIdentifier);
+                userPresenceResolver.markChanged(userId); // 모든 노드의 접속 서버 니어 캐시 무효화
                 log.info("유저 {} → 서버 [{}] 등록 완료", userId, serverIdentifier);
 
                 log.info("유저 {}가 채팅방 {}에 연결됨, server log = {}", userId, chatIdStr, serverIdentifier);
@@ -147,25 +167,58 @@ public class WebSocketHandler extends TextWebSocketHandler {
         switch (talkMessageDTO.getType()) {
 
             case TALK:
-                // DB 저장
-                messageService.createMessage(
-                        new MessageRequestDTO(talkMessageDTO.getContent()), senderId, chatId
-                );
+                // [신규] Snowflake ID를 발행 전에 발급 -> 모든 노드/저장소가 같은 ID 사용
+                long messageId = messageIdGenerator.generate();
+                talkMessageDTO.setMessageId(messageId);
+
+                // DB 저장 (write-behind 비활성 시에만 동기 저장)
+                if (!writeBehindProperties.isEnabled()) {
+                    messageService.createMessage(
+                            new MessageRequestDTO(talkMessageDTO.getContent()), senderId, chatId, messageId
+                    );
+                }
 
                 // 해당 채팅방의 모든 세션에게 메시지 방송
                 // kafkaProducer.send(new MessageSendEvent());
                 // 컨슈머가 받아서 안정적 처리
                 // Kafka로 이벤트 발행 (수정된 부분)
+                // 와이어 프레임은 여기서 단 한 번만 인코딩 -> Kafka/gRPC/모든 노드가 같은 bytes 재사용
                 MessageSendEvent event = MessageSendEvent.builder()
                         .talkMessage(talkMessageDTO)
+                        .payload(objectMapper.writeValueAsBytes(talkMessageDTO))
+                        .persisted(!writeBehindProperties.isEnabled())
                         .build();
-                chatMessageProducer.send(event); // 프로듀서에게 위임
+                chatMessageProducer.send(event) // 프로듀서에게 위임
+                        .whenComplete((result, ex) -> {
+                            // [신규] write-behind: 브로커에 기록되지 않은 메시지는 저장 컨슈머가 볼 수 없으므로 직접 저장
+                            if (ex != null && writeBehindProperties.isEnabled()) {
+                                executor.execute(() -> persistDirectly(talkMessageDTO, senderId, chatId, messageId));
+                            }
+                        });
 
                 // sendMessageToChatRoom(talkMessageDTO);
                 log.info("[메시지] 보낸사람: {}, 채팅방: {}, 내용: {}", senderId, chatId, talkMessageDTO.getContent());
                 break;
 
-            // 향후 다른 실시간 메시지 타입(예: READ_ACK)이 추가.
+            // [신규] 읽음 확인 - REST(PUT /chats/{chatId}/read)와 같은 Lua 경로로 갱신
+            case READ_ACK:
+                Long lastMessageId = talkMessageDTO.getLastMessageId();
+                if (lastMessageId == null) {
+                    log.warn("[READ_ACK 무시] user:{} lastMessageId 없음", senderId);
+                    break;
+                }
+
+                // 실제로 앞으로 이동한 경우에만 방송 대상에 적재 (같은/이전 ID 재전송은 방송 없음)
+                try {
+                    if (messageService.updateLastReadMessage(new LastReadMessageRequestDTO(lastMessageId), senderId, chatId)) {
+                        readReceiptBroadcaster.record(chatId, senderId, lastMessageId);
+                    }
+                } catch (IllegalArgumentException | AccessDeniedException e) {
+                    // 예외를 던지면 세션이 종료되므로 무시만 함
+                    log.warn("[READ_ACK 무시] user:{}, chat:{}, lastMessageId:{} - {}", senderId, chatId, lastMessageId, e.getMessage());
+                }
+                break;
+
             default:
                 log.warn("처리할 수 없는 메시지 타입({}) 수신", talkMessageDTO.getType());
                 break;
@@ -173,138 +226,122 @@ public class WebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void persistDirectly(TalkMessageDTO message, Long senderId, Long chatId, long messageId) {
+        try {
+            messageService.createMessage(new MessageRequestDTO(message.getContent()), senderId, chatId, messageId);
+            log.warn("[Kafka 발행 실패] 메시지 {} 동기 저장으로 대체", messageId);
+        } catch (Exception e) {
+            log.error("[Kafka 발행 실패] 메시지 {} 동기 저장도 실패. chat: {}", messageId, chatId, e);
+        }
+    }
+
     // [신규 추가] Kafka Consumer가 호출할 public 메서드 -> private sendMessageToChatRoom
-    public void broadcastMessage(TalkMessageDTO message) {
+    public void broadcastMessage(TalkMessageDTO message, byte[] payload) {
         log.info("[Kafka Consume] Broadcast 시작. ChatId: {}, Sender: {}", message.getChatId(), message.getSenderId());
-        sendMessageToChatRoom(message);
+        broadcastMessages(List.of(MessageSendEvent.builder().talkMessage(message).payload(payload).build()));
     }
 
-    @Qualifier("customThreadPool")
-    private final Executor executor;
-
-    // 특정 채팅방에 메시지를 방송하는 헬퍼 메서드
-    private void sendMessageToChatRoom(TalkMessageDTO message) {
-        Long chatId = message.getChatId();
-        Set<Long> userIdsInChat = chatService.getUsersInChat(chatId);
-
-        if (userIdsInChat == null || userIdsInChat.isEmpty()) {
-            log.warn("메시지를 전송할 사용자가 없습니다. (채팅방 ID: {})", chatId);
-            return;
+    /**
+     * [신규] Kafka 배치 소비용 방송
+     * - 같은 채팅방 메시지를 묶어 멤버/접속 서버 조회는 방당 1회
+     * - 같은 피어 노드로 가는 릴레이는 배치 전체에서 1회로 합침
+     * - 채팅방 내 메시지 순서는 events 순서(오프셋 순) 그대로 유지
+     */
+    public void broadcastMessages(List<MessageSendEvent> events) {
+        // K: chatId, V: 해당 방 메시지 (삽입 순서 유지)
+        Map<Long, List<MessageSendEvent>> eventsByChat = new LinkedHashMap<>();
+        for (MessageSendEvent event : events) {
+            eventsByChat.computeIfAbsent(event.getTalkMessage().getChatId(), k -> new ArrayList<>()).add(event);
         }
 
-        // 스프링 프레임워크에 내장된 클래스
-        String messagePayload;
-        try {
-            // 메시지 DTO를 JSON 문자열로 변환하여 TextMessage 객체 생성 (한 번만 수행)
-            messagePayload = objectMapper.writeValueAsString(message);
-        } catch (JsonProcessingException e) {
-            log.error("메시지 DTO JSON 변환 실패. ChatId: {}", chatId, e);
-            return;
-        }
-        TextMessage textMessage = new TextMessage(messagePayload);
+        // K: 대상 서버 ID, V: 그 서버로 보낼 릴레이 목록 (방 단위 순서 유지)
+        Map<String, List<RelayEnvelope>> relaysByServer = new HashMap<>();
+        eventsByChat.forEach((chatId, chatEvents) -> sendMessagesToChatRoom(chatId, chatEvents, relaysByServer));
 
-        /*
-            해쉬맵, -> grpc 리퀘스트를 한번에 전송 [ 최적화 ] => 이해정도
-         */
+        //      원격 서버에 gRPC 릴레이 (서버 수만큼만 호출)
+        relaysByServer.forEach((targetServerId, envelopes) -> {
+            log.info("벌크 gRPC 릴레이 시도. 대상 서버: {}, 메시지 수: {}", targetServerId, envelopes.size());
+            relayMessagesViaGrpc(targetServerId, envelopes);
+        });
+    }
 
-        // 각 유저 ID에 해당하는 WebSocketSession을 찾아 메시지 전송.
-        // [수정] 1. 수신자 그룹화: 로컬 / 원격(서버별) / 오프라인
-        Map<String, List<Long>> remoteRelayMap = new HashMap<>();
-        List<WebSocketSession> localSessions = new ArrayList<>();
-        List<Long> offlineUserList = new ArrayList<>();
+    @Qualifier("customThreadPool")
+    private final Executor executor;
 
-        for (Long userId : userIdsInChat) {
-            WebSocketSession receiverSession = sessionManager.getSession(userId);
+    // 특정 채팅방에 메시지들을 방송하는 헬퍼 메서드 (원격 릴레이는 relaysByServer에 모아 호출 측에서 한 번에 전송)
+    private void sendMessagesToChatRoom(Long chatId, List<MessageSendEvent> chatEvents, Map<String, List<RelayEnvelope>> relaysByServer) {
 
-            // Case 1: 같은 서버 (로컬 전송 대상)
-            if (receiverSession != null && receiverSession.isOpen()) {
-                localSessions.add(receiverSession);
-            }
-            // Case 2: 다른 서버 또는 오프라인
-            else {
-                String redisKey = USER_SERVER_KEY_PREFIX + userId;
-                String targetServerId = redisTemplateForString.opsForValue().get(redisKey);
+        // [수정] 수신자 그룹화: 로컬 / 원격(서버별) / 오프라인
+        //      멤버 목록은 노드 로컬 인덱스에서 조회 (메시지당 SMEMBERS 없음), 배치 내 같은 방은 1회만 조회
+        BroadcastRoute route = broadcastRouter.route(chatId);
 
-                // Case 2-A: 다른 서버 (gRPC 벌크 릴레이 대상)
-                if (targetServerId != null && !targetServerId.equals(serverIdentifier)) {
-                    remoteRelayMap
-                            .computeIfAbsent(targetServerId, k -> new ArrayList<>())
-                            .add(userId);
-                }
-                // Case 2-B: 오프라인 (FCM 대상)
-                else {
-                    offlineUserList.add(userId);
-                }
-            }
+        if (route.isEmpty()) {
+            log.warn("메시지를 전송할 사용자가 없습니다. (채팅방 ID: {})", chatId);
+            return;
         }
 
-        //      (처리 1) 로컬 세션에 병렬 전송
-        localSessions.forEach(session -> {
-            executor.execute(() -> {
+        for (MessageSendEvent event : chatEvents) {
+            TalkMessageDTO message = event.getTalkMessage();
+
+            // 프로듀서가 인코딩한 프레임이 있으면 그대로 사용, 없을 때만 (구버전 이벤트) 직렬화
+            byte[] payload = event.getPayload();
+            if (payload == null || payload.length == 0) {
                 try {
-                    session.sendMessage(textMessage);
-                } catch (IOException e) {
-                    log.error("로컬 전송 실패. 수신자 ID: {}", getUserIdFromSession(session).orElse(0L), e);
+                    payload = objectMapper.writeValueAsBytes(message);
+                } catch (JsonProcessingException e) {
+                    log.error("메시지 DTO JSON 변환 실패. ChatId: {}", chatId, e);
+                    continue;
                 }
-            });
-        });
-
-        //      (처리 2) 원격 서버에 벌크 gRPC 릴레이 (서버 수만큼만 호출)
-        remoteRelayMap.forEach((targetServerId, recipientIds) -> {
-            log.info("벌크 gRPC 릴레이 시도. 대상 서버: {}, 수신자 수: {}", targetServerId, recipientIds.size());
-            // [신규] 벌크 릴레이 헬퍼 호출
-            relayMessageViaGrpcBulk(targetServerId, message, recipientIds);
-        });
+            }
+            // 모든 로컬 세션이 같은 TextMessage(버퍼)를 공유
+            TextMessage textMessage = new TextMessage(payload);
+
+            //      (처리 1) 로컬 세션 송신 큐에 적재 (실제 전송은 세션별 단일 writer가 수행)
+            route.getLocalSessions().forEach(session ->
+                    outboundMessageDispatcher.send(session, textMessage, message)
+            );
+
+            //      (처리 2) 원격 서버 릴레이 대상으로 적재
+            for (Map.Entry<String, List<Long>> entry : route.getRemoteRecipients().entrySet()) {
+                relaysByServer.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                        .add(new RelayEnvelope(message, payload, entry.getValue()));
+            }
 
-        //      (처리 3) 오프라인 유저에게 FCM 병렬 전송
-        offlineUserList.forEach(userId -> {
-            executor.execute(() -> {
-                log.info("FCM 알림 시도: 유저 {}", userId);
-                // DB 저장 및 푸시 전송
-                saveUndeliveredAndSendPush(chatId, userId, message);
+            //      (처리 3) 오프라인 유저에게 FCM 병렬 전송
+            route.getOfflineUserIds().forEach(userId -> {
+                executor.execute(() -> {
+                    log.info("FCM 알림 시도: 유저 {}", userId);
+                    // DB 저장 및 푸시 전송
+                    undeliveredMessageService.saveAndSendPush(chatId, userId, message);
+                });
             });
-        });
-    }
-
-    /**
-     * [신규] FCM 처리 헬퍼 메서드
-     */
-    private void saveUndeliveredAndSendPush(Long chatId, Long userId, TalkMessageDTO message) {
-        UndeliveredMessage undelivered = UndeliveredMessage.builder()
-                .id(undeliveredMessageIdGenerator.generate())
-                .chatId(chatId)
-                .senderId(message.getSenderId())
-                .receiverId(userId)
-                .content(message.getContent())
-                .build();
-        undeliveredMessageRepository.save(undelivered);
-        fcmPushService.sendPushNotification(userId, message);
+        }
     }
 
     /**
      * [신규] 벌크 gRPC 릴레이를 위한 헬퍼 메서드
+     * [수정] 같은 서버로 가는 메시지를 한 번에 전달, 릴레이하지 못한 수신자(피어 서킷 OPEN, 전송 실패, 주소 없음)는 미전달/FCM 경로로 우회
+     *        적재 이후의 비동기 실패(스트림 종료, 배치 RPC 실패)는 MessageRelayClient가 같은 RelayFailureHandler로 전달
      */
-    private void relayMessageViaGrpcBulk(String targetServerId, TalkMessageDTO messageDTO, List<Long> recipientIds) {
-        // 1. 설정에서 서버 주소록을 가져오기
-        Map<String, String> addresses = grpcServerProperties.getAddresses();
-        String targetAddress = addresses.get(targetServerId);
+    private void relayMessagesViaGrpc(String targetServerId, List<RelayEnvelope> envelopes) {
+        // 1. 노드 레지스트리에서 파싱된 대상 주소 조회 (Map 조회 1회)
+        PeerEndpoint target = nodeRegistry.resolve(targetServerId);
 
-        if (targetAddress == null || targetAddress.isEmpty()) {
+        int relayed = 0;
+        if (target == null) {
             log.error("gRPC 벌크 릴레이 실패: 대상 서버 '{}'의 주소를 찾을 수 없습니다.", targetServerId);
-            return;
-        }
-
-        try {
-            // 2. 주소를 host와 port로 분리
-            String[] parts = targetAddress.split(":");
-            String host = parts[0];
-            int port = Integer.parseInt(parts[1]);
+        } else {
+            try {
+                // 2. MessageRelayClient 릴레이 호출 (STREAM / ASYNC_BATCH 모드면 적재 후 즉시 반환)
+                relayed = messageRelayClient.relayAll(target, envelopes);
 
-            // 3. MessageRelayClient의 [신규] 벌크 메서드 호출
-            messageRelayClient.relayBulkMessageToServer(host, port, messageDTO, recipientIds);
+            } catch (Exception e) {
+                log.error("gRPC 벌크 릴레이 중 예상치 못한 에러 발생. 대상 서버: {}", targetServerId, e);
+            }
+        }
 
-        } catch (Exception e) {
-            log.error("gRPC 벌크 릴레이 중 예상치 못한 에러 발생. 대상 서버: {}", targetServerId, e);
+        if (relayed < envelopes.size()) {
+            relayFailureHandler.onRelayFailed(targetServerId, envelopes.subList(relayed, envelopes.size()));
         }
     }
 
@@ -318,6 +355,7 @@ public class WebSocketHandler extends TextWebSocketHandler {
 
         Long userId = userIdOptional.get();
         sessionManager.removeSession(userId);
+        outboundMessageDispatcher.unregister(session);
 
         // (선택) chatService에 비정상 종료를 알려 상태를 정리하도록 할 수 있습니다.
         // chatService.handleDisconnect(userId);
@@ -327,11 +365,13 @@ public class WebSocketHandler extends TextWebSocketHandler {
         String chatIdStr = (String) redisTemplateForString.opsForHash().get(userKey, "chatId");
         if (chatIdStr != null) {
             redisTemplateForString.opsForSet().remove("chatId:" + chatIdStr + ":userId", String.valueOf(userId));
+            chatMembershipIndex.leave(Long.parseLong(chatIdStr), userId);
         }
 
         // 메모리/Redis 정리
         sessionManager.removeSession(userId);
         redisTemplateForString.delete(USER_SERVER_KEY_PREFIX + userId);
+        userPresenceResolver.markChanged(userId);
         log.info("유저 {}의 연결 종료, 서버 [{}]에서 정리 완료", userId, serverIdentifier);
 
         // redisTemplate.delete(userKey);
@@ -347,26 +387,18 @@ public class WebSocketHandler extends TextWebSocketHandler {
         ㄱ 서버에는 벌크로 요청하는 릴레이로 개선
      */
     private void relayMessageViaGrpc (String targetServerId, TalkMessageDTO messageDTO, Long recipientId) {
-        // 1. 설정에서 서버 주소록을 가져오기
-        Map<String, String> addresses = grpcServerProperties.getAddresses();
-        String targetAddress = addresses.get(targetServerId);
+        // 1. 노드 레지스트리에서 대상 주소 조회
+        PeerEndpoint target = nodeRegistry.resolve(targetServerId);
 
-        if (targetAddress == null || targetAddress.isEmpty()) {
+        if (target == null) {
             log.error("gRPC 릴레이 실패: 대상 서버 '{}'의 주소를 찾을 수 없습니다.", targetServerId);
             return;
         }
 
         try {
-            // 2. 주소를 host와 port로 분리 (e.g., "localhost:9091")
-            String[] parts = targetAddress.split(":");
-            String host = parts[0];
-            int port = Integer.parseInt(parts[1]);
-
-            // 3. MessageRelayClient를 사용하여 gRPC 요청 송신
-            messageRelayClient.relayMessageToServer(host, port, messageDTO, recipientId);
+            // 2. MessageRelayClient를 사용하여 gRPC 요청 송신
+            messageRelayClient.relayMessageToServer(target, messageDTO, recipientId);
 
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            log.error("gRPC 릴레이 실패: 대상 서버 '{}'의 주소 형식이 올바르지 않습니다. (address: {})", targetServerId, targetAddress, e);
         } catch (Exception e) {
             log.error("gRPC 릴레이 중 예상치 못한 에러 발생. 대상 서버: {}", targetServerId, e);
         }
@@ -1,6 +1,5 @@
 package com.dy.minichat.kafka.consumer;
 
-import com.dy.minichat.dto.message.TalkMessageDTO;
 import com.dy.minichat.event.MessageSendEvent;
 import com.dy.minichat.handler.WebSocketHandler;
 import lombok.RequiredArgsConstructor;
@@ -8,6 +7,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -16,18 +18,28 @@ public class ChatMessageConsumer {
     // WebSocketHandler를 주입받음
     private final WebSocketHandler webSocketHandler;
 
+    /*
+        [수정] 배치 리스너 - poll 단위로 받아 한 번에 방송
+        key가 chatId라 같은 방 메시지는 같은 파티션 -> 리스트 안에서도 오프셋 순서 유지
+    */
     @KafkaListener(
             topics = "chat-message",
-            groupId = "chat-group"
+            groupId = "chat-group",
+            containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void consume(MessageSendEvent event) {
-        TalkMessageDTO message = event.getTalkMessage();
-        if (message == null) {
-            log.warn("[Kafka] Consumed null message event.");
-            return;
+    public void consume(List<MessageSendEvent> events) {
+        List<MessageSendEvent> valid = new ArrayList<>(events.size());
+        for (MessageSendEvent event : events) {
+            if (event == null || event.getTalkMessage() == null) {
+                log.warn("[Kafka] Consumed null message event.");
+                continue;
+            }
+            valid.add(event);
         }
+        if (valid.isEmpty()) return;
 
-        // Handler의 public 메서드 호출
-        webSocketHandler.broadcastMessage(message);
+        log.info("[Kafka Consume] Broadcast 배치 시작. 메시지 수: {}", valid.size());
+        // Handler의 public 메서드 호출 (미리 인코딩된 프레임 함께 전달)
+        webSocketHandler.broadcastMessages(valid);
     }
-}
\ No newline at end of file
+}
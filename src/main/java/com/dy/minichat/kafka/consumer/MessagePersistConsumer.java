@@ -0,0 +1,115 @@
+package com.dy.minichat.kafka.consumer;
+
+import com.dy.minichat.component.RecentMessageCache;
+import com.dy.minichat.component.RecentMessageCache.RecentMessage;
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.entity.MessageType;
+import com.dy.minichat.entity.User;
+import com.dy.minichat.event.MessageSendEvent;
+import com.dy.minichat.event.UserChatUpdateEvent;
+import com.dy.minichat.kafka.producer.UserChatUpdateProducer;
+import com.dy.minichat.repository.MessageJdbcRepository;
+import com.dy.minichat.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    [신규] write-behind 메시지 저장 컨슈머
+
+    - chat-message 토픽을 방송 컨슈머(chat-group)와 별도 그룹으로 소비 -> 방송 지연과 DB 저장이 서로 영향 없음
+    - poll 단위 multi-row INSERT IGNORE (ID가 미리 발급돼 있어 재처리해도 멱등)
+    - 저장 후 채팅방별 최신 메시지로 user-chat-update 이벤트 발행 (채팅방 목록 정렬용)
+    - 저장 후 채팅방별 최근 메시지 캐시 적재
+    - [수정] 발행 노드에서 이미 동기 저장한 메시지(persisted)는 저장/캐시 적재/이벤트 발행 모두 생략
+    - [수정] 저장 중 예외 시 persistKafkaListenerContainerFactory의 에러 핸들러가 같은 배치를 무한 재시도
+      (지수 backoff, 최대 간격 30초, 건너뛰거나 오프셋을 넘기지 않음) -> DB 장애가 길어져도 Kafka에 기록된 메시지는 복구 후 반영
+      단, INSERT IGNORE는 FK 위반 row(탈퇴 유저, 삭제된 채팅방 등)를 예외 없이 건너뜀 -> INSERT 수가 배치보다 적으면 경고 로그
+      (재처리로 이미 저장된 메시지도 같은 이유로 적게 집계될 수 있음)
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "minichat.message.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+public class MessagePersistConsumer {
+
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final UserChatUpdateProducer userChatUpdateProducer;
+    private final UserRepository userRepository;
+    private final RecentMessageCache recentMessageCache;
+
+    @KafkaListener(
+            topics = "chat-message",
+            groupId = "message-persist-group",
+            containerFactory = "persistKafkaListenerContainerFactory"
+    )
+    public void consume(List<MessageSendEvent> events) {
+        List<TalkMessageDTO> messages = new ArrayList<>(events.size());
+        // K: chatId, V: 배치 내 가장 최신 메시지
+        Map<Long, TalkMessageDTO> latestByChat = new HashMap<>();
+
+        for (MessageSendEvent event : events) {
+            // [수정] 발행 전에 동기 저장된 메시지는 건너뜀 (write-behind 비활성 노드가 섞인 클러스터)
+            //        messageId는 항상 채워져 있으므로 persisted 표식으로 구분
+            if (event == null || event.isPersisted()) continue;
+            TalkMessageDTO message = event.getTalkMessage();
+            if (message == null || message.getMessageId() == null) continue;
+
+            messages.add(message);
+            latestByChat.merge(message.getChatId(), message,
+                    (prev, cur) -> cur.getMessageId() > prev.getMessageId() ? cur : prev);
+        }
+        if (messages.isEmpty()) return;
+
+        int inserted = messageJdbcRepository.batchInsertIgnore(messages);
+        if (inserted < messages.size()) {
+            log.warn("[Kafka] Write-behind INSERT 누락 {}건 (배치 {}건 중 {}건 저장) - 재처리 중복이거나 FK 위반",
+                    messages.size() - inserted, messages.size(), inserted);
+        }
+        pushRecentMessages(messages);
+
+        for (TalkMessageDTO latest : latestByChat.values()) {
+            userChatUpdateProducer.sendUserChatUpdateEvent(UserChatUpdateEvent.builder()
+                    .chatId(latest.getChatId())
+                    .lastMessageId(latest.getMessageId())
+                    .timestamp(MessageJdbcRepository.toCreatedAt(latest))
+                    .build());
+        }
+        log.info("[Kafka] Write-behind 저장 완료. Messages={}, Chats={}", messages.size(), latestByChat.size());
+    }
+
+    // [신규] 최근 메시지 캐시 적재 - 발신자 이름은 배치당 1회 조회 (읽기 경로에서 조회하지 않도록)
+    private void pushRecentMessages(List<TalkMessageDTO> messages) {
+        Set<Long> senderIds = new HashSet<>();
+        for (TalkMessageDTO message : messages) {
+            senderIds.add(message.getSenderId());
+        }
+        Map<Long, String> senderNames = new HashMap<>();
+        for (User user : userRepository.findAllById(senderIds)) {
+            senderNames.put(user.getId(), user.getName());
+        }
+
+        // K: chatId, V: 오래된 순 메시지 (LPUSH 후 최신이 앞)
+        Map<Long, List<RecentMessage>> byChat = new LinkedHashMap<>();
+        for (TalkMessageDTO message : messages) {
+            byChat.computeIfAbsent(message.getChatId(), k -> new ArrayList<>()).add(new RecentMessage(
+                    message.getMessageId(),
+                    message.getSenderId(),
+                    senderNames.get(message.getSenderId()),
+                    MessageType.TALK.name(),
+                    message.getContent()
+            ));
+        }
+        recentMessageCache.push(byChat);
+    }
+}
@@ -2,36 +2,43 @@ package com.dy.minichat.kafka.consumer;
 
 import com.dy.minichat.event.UserChatUpdateEvent;
 import com.dy.minichat.repository.UserChatJdbcRepository;
-import com.dy.minichat.repository.UserChatRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class UserChatUpdateConsumer {   // DB 업데이트 담당
-    private final UserChatRepository userChatRepository;
     private final UserChatJdbcRepository userChatJdbcRepository;
 
+    /*
+        [수정] 배치 리스너 + 채팅방별 last-write-wins
+        기존: 메시지 1건마다 findIdsByChatId + UPDATE 배치 -> 바쁜 방일수록 같은 row를 계속 덮어씀
+        변경: poll 단위로 채팅방별 최대 lastMessageId만 남기고, UPDATE ... WHERE chat_id IN (...) 1회
+    */
     @KafkaListener(
             topics = "user-chat-update",
-            groupId = "chat-service-group")
+            groupId = "chat-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
     @Transactional // 컨슈머에 어노테이션을 다는 것 보다 서비스에서 다는게 일반적
-    // 테스트할 때 -> List<UserChatUpdateEvent> events 이렇게도 할 수 있음!
-    public void consume(UserChatUpdateEvent event) {
-        List<Long> userChatIds = userChatRepository.findIdsByChatId(event.getChatId());
-        if (userChatIds.isEmpty()) return;
+    public void consume(List<UserChatUpdateEvent> events) {
+        // K: chatId, V: 배치 내 가장 최신 메시지 (Snowflake ID가 클수록 최신)
+        Map<Long, UserChatUpdateEvent> latestByChat = new HashMap<>();
+        for (UserChatUpdateEvent event : events) {
+            if (event == null || event.getChatId() == null || event.getLastMessageId() == null) continue;
+            latestByChat.merge(event.getChatId(), event,
+                    (prev, cur) -> cur.getLastMessageId() > prev.getLastMessageId() ? cur : prev);
+        }
+        if (latestByChat.isEmpty()) return;
 
-        userChatJdbcRepository.batchUpdateLastWrittenMessage(
-                userChatIds,
-                event.getLastMessageId(),
-                event.getTimestamp()
-        );
-        log.info("[Kafka] UserChatUpdateEvent consumed. ChatId={}, Updated={}", event.getChatId(), userChatIds.size());
+        userChatJdbcRepository.updateLastWrittenMessageByChatIds(latestByChat);
+        log.info("[Kafka] UserChatUpdateEvent batch consumed. Events={}, Chats={}", events.size(), latestByChat.size());
     }
-}
\ No newline at end of file
+}
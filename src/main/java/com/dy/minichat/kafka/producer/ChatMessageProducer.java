@@ -4,8 +4,11 @@ import com.dy.minichat.event.MessageSendEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -14,14 +17,19 @@ public class ChatMessageProducer {
     private final KafkaTemplate<String, MessageSendEvent> kafkaTemplate;
     private static final String TOPIC = "chat-message"; // (토픽 이름)
 
-    public void send(MessageSendEvent event) {
+    /**
+     * [수정] 발행 결과를 반환 -> write-behind 모드에서 브로커 기록 실패 시 호출 측이 직접 저장
+     */
+    public CompletableFuture<SendResult<String, MessageSendEvent>> send(MessageSendEvent event) {
         try {
             // TalkMessageDTO의 chatId를 Key로 사용 (순서 보장)
             String key = String.valueOf(event.getTalkMessage().getChatId());
-            kafkaTemplate.send(TOPIC, key, event);
+            CompletableFuture<SendResult<String, MessageSendEvent>> future = kafkaTemplate.send(TOPIC, key, event);
             log.info("[Kafka] Chat message produced. Key: {}", key);
+            return future;
         } catch (Exception e) {
             log.error("[Kafka] Produce 실패: {}", event.getTalkMessage().getContent(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 }
\ No newline at end of file
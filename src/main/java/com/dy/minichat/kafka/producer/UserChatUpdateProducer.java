@@ -14,7 +14,8 @@ public class UserChatUpdateProducer {
     private static final String TOPIC = "user-chat-update";
 
     public void sendUserChatUpdateEvent(UserChatUpdateEvent event) {
-        kafkaTemplate.send(TOPIC, event);
+        // [수정] chatId를 Key로 사용 -> 같은 방 이벤트가 같은 파티션/배치에 모여 컨슈머에서 합쳐짐
+        kafkaTemplate.send(TOPIC, String.valueOf(event.getChatId()), event);
         log.info("[Kafka] UserChatUpdateEvent produced. ChatId={}", event.getChatId());
     }
 }
\ No newline at end of file
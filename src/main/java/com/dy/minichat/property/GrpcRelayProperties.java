@@ -0,0 +1,63 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    노드 간 gRPC 릴레이 전송 방식 설정
+    grpc.relay.mode: UNARY(요청마다 blocking 단건 RPC) / STREAM(피어당 장기 양방향 스트림)
+                     / ASYNC_BATCH(피어별로 짧은 윈도우 동안 모아서 비동기 배치 RPC)
+*/
+@Component
+@ConfigurationProperties(prefix = "grpc.relay")
+@Getter
+@Setter
+public class GrpcRelayProperties {
+
+    private RelayMode mode = RelayMode.STREAM;
+
+    // 스트림당 ack 받지 못한 채 전송할 수 있는 최대 프레임 수
+    private int streamMaxInFlight = 1024;
+
+    // 스트림당 전송 대기 큐 한도
+    // [수정] 초과분은 스트림이 비어 있을 때만 단건 RPC로 폴백, 아니면 호출 측이 미전달/FCM으로 우회 (MessageRelayClient.relayAll)
+    private int streamMaxPending = 10000;
+
+    // [신규] 종료 시 스트림의 마지막 ack를 기다리는 최대 시간 (넘으면 ack 받지 못한 프레임만 우회)
+    private long streamCloseTimeoutMs = 3000;
+
+    // ASYNC_BATCH: 배치를 모으는 최대 대기 시간(ms) / 배치당 최대 메시지 수
+    private long batchWindowMs = 2;
+    private int batchMaxMessages = 256;
+
+    // ASYNC_BATCH: 피어당 전송 대기 메시지 한도
+    // [수정] 초과분은 배처가 비어 있을 때만 동기 RPC로 폴백, 아니면 호출 측이 미전달/FCM으로 우회 (MessageRelayClient.relayAll)
+    private int batchMaxPending = 10000;
+
+    // ASYNC_BATCH: 배치 RPC deadline
+    private long batchDeadlineMs = 3000;
+
+    // [신규] 피어 연결 풀 - 피어당 서브채널 수 (라운드 로빈으로 분산)
+    private int subchannelsPerPeer = 2;
+
+    // [신규] HTTP/2 keepalive ping 주기 / 응답 대기 시간
+    private long keepAliveTimeMs = 30000;
+    private long keepAliveTimeoutMs = 5000;
+
+    // [신규] gRPC 헬스 체크 주기 / deadline
+    private long healthCheckIntervalMs = 5000;
+    private long healthCheckTimeoutMs = 1000;
+
+    // [신규] 서킷 브레이커 - 연속 실패 임계치 / 재연결 backoff (지수 증가, 최대값 제한)
+    private int breakerFailureThreshold = 3;
+    private long breakerBaseBackoffMs = 1000;
+    private long breakerMaxBackoffMs = 30000;
+
+    public enum RelayMode {
+        UNARY,
+        STREAM,
+        ASYNC_BATCH
+    }
+}
@@ -0,0 +1,33 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    읽음 위치 Redis -> MySQL 동기화(RedisSchedulerService) 설정
+    lastread.sync.workers: 동시에 드레인하는 워커 수 (dirty 샤드를 나눠 가짐)
+    lastread.sync.min-batch-size / max-batch-size: 샤드당 SPOP 크기 범위 (백로그에 따라 자동 조절)
+*/
+@Component
+@ConfigurationProperties(prefix = "lastread.sync")
+@Getter
+@Setter
+public class LastReadSyncProperties {
+
+    private int workers = 4;
+
+    private int minBatchSize = 100;
+    private int maxBatchSize = 5000;
+
+    // 모든 샤드가 비어 있을 때 다음 드레인까지 대기 시간
+    private long idleDelayMs = 500;
+
+    // 백로그(dirty set 크기) 측정 주기 - 메트릭 + 배치 크기 초기값에 사용
+    private long backlogSampleIntervalMs = 5000;
+
+    // [신규] 읽음 위치의 메시지가 아직 MySQL에 없을 때(write-behind INSERT 전) 재시도하는 기간
+    // 메시지 ID(Snowflake)의 발급 시각 기준 - 이보다 오래된 메시지가 여전히 없으면 잘못된 읽음 위치로 보고 폐기
+    private long missingMessageRetryMs = 300_000;
+}
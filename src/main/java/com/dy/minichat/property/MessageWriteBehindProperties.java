@@ -0,0 +1,21 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    WebSocket TALK 메시지 write-behind 저장 설정
+    minichat.message.write-behind.enabled
+        true : ID만 먼저 발급하고 Kafka 발행 -> 별도 컨슈머 그룹이 배치로 MySQL 저장 (전송 경로에 DB 왕복 없음)
+        false: 기존처럼 발행 전에 동기 저장
+*/
+@Component
+@ConfigurationProperties(prefix = "minichat.message.write-behind")
+@Getter
+@Setter
+public class MessageWriteBehindProperties {
+
+    private boolean enabled = true;
+}
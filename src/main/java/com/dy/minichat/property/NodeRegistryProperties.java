@@ -0,0 +1,25 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    노드 레지스트리 (Redis 기반 노드 탐색) 설정
+    advertise-host 미지정 시 로컬 호스트 주소를 등록
+*/
+@Component
+@ConfigurationProperties(prefix = "node.registry")
+@Getter
+@Setter
+public class NodeRegistryProperties {
+
+    // 다른 노드가 접속할 gRPC 호스트 / 포트 (포트 0이면 grpc.server.port 사용)
+    private String advertiseHost;
+    private int advertisePort = 0;
+
+    // 하트비트 주기 / 등록 키 TTL (하트비트가 TTL 안에 여러 번 들어오도록 설정)
+    private long heartbeatIntervalMs = 5000;
+    private long ttlMs = 15000;
+}
@@ -0,0 +1,19 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    읽음 확인(READ_ACK) 방송 설정
+    websocket.read-receipt.flush-interval-ms: 채팅방별 읽음 변경을 모아 한 프레임으로 방송하는 주기
+*/
+@Component
+@ConfigurationProperties(prefix = "websocket.read-receipt")
+@Getter
+@Setter
+public class ReadReceiptProperties {
+
+    private long flushIntervalMs = 200;
+}
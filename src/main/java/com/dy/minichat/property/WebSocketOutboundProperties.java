@@ -0,0 +1,31 @@
+package com.dy.minichat.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+    세션별 송신 큐(SessionOutboundQueue) 설정
+    websocket.outbound.capacity: 세션 하나가 쌓아둘 수 있는 최대 프레임 수
+    websocket.outbound.overflow-policy: 큐가 가득 찼을 때의 처리 방식
+*/
+@Component
+@ConfigurationProperties(prefix = "websocket.outbound")
+@Getter
+@Setter
+public class WebSocketOutboundProperties {
+
+    private int capacity = 256;
+
+    // 한 번의 드레인 턴에서 보낼 최대 프레임 수 (한 세션이 송신 스레드를 독점하지 않도록)
+    private int maxFramesPerDrain = 64;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,        // 가장 오래된 프레임을 버리고 새 프레임 적재
+        CLOSE_SESSION,      // 느린 소비자로 판단하여 세션 종료
+        DIVERT_UNDELIVERED  // 새 프레임을 미전달 메시지 저장소(+FCM)로 우회
+    }
+}
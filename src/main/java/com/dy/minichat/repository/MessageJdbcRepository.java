@@ -0,0 +1,78 @@
+package com.dy.minichat.repository;
+
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.entity.MessageType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class MessageJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // 한 statement에 담을 최대 row 수
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    /**
+     * [신규] write-behind 저장 - multi-row INSERT IGNORE
+     * ID(Snowflake)는 발행 전에 이미 발급됨 -> 컨슈머 재시도로 같은 메시지가 다시 와도 PK 중복은 무시 (멱등)
+     * [수정] IGNORE는 FK 위반 row도 조용히 건너뛰므로 실제 INSERT된 row 수를 반환 (호출 측에서 배치 크기와 비교)
+     * @return INSERT된 row 수
+     */
+    public int batchInsertIgnore(List<TalkMessageDTO> messages) {
+        int inserted = 0;
+        for (int from = 0; from < messages.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<TalkMessageDTO> chunk = messages.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, messages.size()));
+
+            StringBuilder sql = new StringBuilder(
+                    "INSERT IGNORE INTO messages (id, user_id, chat_id, content, message_type, created_at) VALUES ");
+            List<Object> params = new ArrayList<>(chunk.size() * 6);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                TalkMessageDTO message = chunk.get(i);
+                sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+                params.add(message.getMessageId());
+                params.add(message.getSenderId());
+                params.add(message.getChatId());
+                params.add(message.getContent());
+                params.add(MessageType.TALK.name());
+                params.add(Timestamp.valueOf(toCreatedAt(message)));
+            }
+
+            inserted += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return inserted;
+    }
+
+    /**
+     * [신규] 저장된 메시지 ID만 추려냄 (읽음 동기화에서 아직 INSERT 전인 메시지 구분용)
+     */
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> chunk = list.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, list.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT id FROM messages WHERE id IN (" + placeholders + ")", Long.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
+    // @CreationTimestamp와 같은 기준(서버 로컬 시간)으로 변환
+    public static LocalDateTime toCreatedAt(TalkMessageDTO message) {
+        if (message.getTimestamp() == null) return LocalDateTime.now();
+        return LocalDateTime.ofInstant(message.getTimestamp(), ZoneId.systemDefault());
+    }
+}
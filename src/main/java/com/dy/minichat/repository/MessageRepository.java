@@ -3,7 +3,10 @@ package com.dy.minichat.repository;
 import com.dy.minichat.entity.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -18,4 +21,29 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             LocalDateTime joinTimestamp,
             Pageable pageable
     );
+
+    /*
+        [신규] keyset(seek) 페이지네이션 - (chat_id, id) 인덱스 범위 스캔만 수행
+        - OFFSET 없음: 깊이 스크롤해도 첫 페이지와 같은 비용
+        - Slice 반환: COUNT(*) 없이 size + 1건으로 다음 페이지 존재 여부만 판단
+        - 발신자는 fetch join (메시지마다 User 지연 로딩 방지)
+    */
+    @Query("select m from Message m left join fetch m.user " +
+            "where m.chat.id = :chatId and m.id < :beforeId and m.id >= :floorId " +
+            "order by m.id desc")
+    Slice<Message> findSliceBefore(
+            @Param("chatId") Long chatId,
+            @Param("beforeId") long beforeId,
+            @Param("floorId") long floorId,
+            Pageable pageable
+    );
+
+    @Query("select m from Message m left join fetch m.user " +
+            "where m.chat.id = :chatId and m.id > :afterId " +
+            "order by m.id asc")
+    Slice<Message> findSliceAfter(
+            @Param("chatId") Long chatId,
+            @Param("afterId") long afterId,
+            Pageable pageable
+    );
 }
@@ -1,12 +1,15 @@
 package com.dy.minichat.repository;
 
+import com.dy.minichat.event.UserChatUpdateEvent;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
@@ -35,33 +38,89 @@ public class UserChatJdbcRepository {
         });
     }
 
+    // 한 statement에 담을 최대 채팅방 수 (바인딩 파라미터 수 = 채팅방 수 * 7)
+    private static final int MAX_CHATS_PER_STATEMENT = 500;
+
+    /**
+     * [신규] 여러 채팅방의 마지막 메시지를 set 기반 UPDATE 1회로 반영
+     *  UPDATE userchats SET last_written_message_id = CASE chat_id WHEN ? THEN ? ... END, ...
+     *  WHERE chat_id IN (...) AND is_deleted = false AND (기존 값이 더 작을 때만)
+     * @param lastMessages K: chatId, V: 해당 방의 최신 메시지 이벤트 (방당 1건으로 합쳐진 상태)
+     */
+    public void updateLastWrittenMessageByChatIds(Map<Long, UserChatUpdateEvent> lastMessages) {
+        List<UserChatUpdateEvent> events = new ArrayList<>(lastMessages.values());
+
+        for (int from = 0; from < events.size(); from += MAX_CHATS_PER_STATEMENT) {
+            List<UserChatUpdateEvent> chunk = events.subList(from, Math.min(from + MAX_CHATS_PER_STATEMENT, events.size()));
+
+            StringBuilder messageIdCase = new StringBuilder("CASE chat_id");
+            StringBuilder timestampCase = new StringBuilder("CASE chat_id");
+            StringBuilder inClause = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                messageIdCase.append(" WHEN ? THEN ?");
+                timestampCase.append(" WHEN ? THEN ?");
+                inClause.append(i == 0 ? "?" : ", ?");
+            }
+            messageIdCase.append(" END");
+            timestampCase.append(" END");
+
+            String sql = "UPDATE userchats " +
+                    "SET last_written_message_id = " + messageIdCase + ", " +
+                    "last_message_timestamp = " + timestampCase + " " +
+                    "WHERE chat_id IN (" + inClause + ") AND is_deleted = false " +
+                    "AND (last_written_message_id IS NULL OR last_written_message_id < " + messageIdCase + ")";
+
+            List<Object> params = new ArrayList<>(chunk.size() * 7);
+            for (UserChatUpdateEvent event : chunk) {
+                params.add(event.getChatId());
+                params.add(event.getLastMessageId());
+            }
+            for (UserChatUpdateEvent event : chunk) {
+                params.add(event.getChatId());
+                params.add(event.getTimestamp() == null ? null : Timestamp.valueOf(event.getTimestamp()));
+            }
+            for (UserChatUpdateEvent event : chunk) {
+                params.add(event.getChatId());
+            }
+            for (UserChatUpdateEvent event : chunk) {
+                params.add(event.getChatId());
+                params.add(event.getLastMessageId());
+            }
+
+            jdbcTemplate.update(sql, params.toArray());
+        }
+    }
+
 
     public static class UserChatUpdate {
         private final Long userId;
         private final Long chatId;
         private final Long lastMessageId;
-        private final String dirtyKey;
 
-        public UserChatUpdate(Long userId, Long chatId, Long lastMessageId, String dirtyKey) {
+        public UserChatUpdate(Long userId, Long chatId, Long lastMessageId) {
             this.userId = userId;
             this.chatId = chatId;
             this.lastMessageId = lastMessageId;
-            this.dirtyKey = dirtyKey;
         }
 
         public Long getUserId() { return userId; }
         public Long getChatId() { return chatId; }
         public Long getLastMessageId() { return lastMessageId; }
-        public String getDirtyKey() { return dirtyKey; }
     }
 
-    public void batchUpdateLastRead(List<UserChatUpdate> updates) {
+    /**
+     * [수정] 읽음 갱신 API가 메시지 존재를 조회하지 않으므로, 같은 채팅방에 실제 저장된 메시지일 때만 반영 (FK 위반으로 배치 전체가 실패하지 않도록)
+     * [수정] write-behind로 메시지 INSERT가 늦으면 0 row -> 호출 측이 재시도할 수 있도록 row별 결과 반환
+     * @return updates와 같은 순서의 row별 갱신 수 (0: 미반영, Statement.SUCCESS_NO_INFO: 드라이버가 알려주지 않음)
+     */
+    public int[] batchUpdateLastRead(List<UserChatUpdate> updates) {
         String sql = "UPDATE userchats " +
                 "SET last_read_message_id = ? " +
                 "WHERE user_id = ? AND chat_id = ? " +
-                "AND (last_read_message_id IS NULL OR last_read_message_id < ?)";
+                "AND (last_read_message_id IS NULL OR last_read_message_id < ?) " +
+                "AND EXISTS (SELECT 1 FROM messages m WHERE m.id = ? AND m.chat_id = ?)";
 
-        jdbcTemplate.batchUpdate(sql,
+        int[][] counts = jdbcTemplate.batchUpdate(sql,
                 updates,
                 updates.size(),
                 (ps, update) -> {
@@ -69,7 +128,18 @@ public class UserChatJdbcRepository {
                     ps.setLong(2, update.getUserId());
                     ps.setLong(3, update.getChatId());
                     ps.setLong(4, update.getLastMessageId());
+                    ps.setLong(5, update.getLastMessageId());
+                    ps.setLong(6, update.getChatId());
                 }
         );
+
+        int[] result = new int[updates.size()];
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                result[index++] = count;
+            }
+        }
+        return result;
     }
 }
\ No newline at end of file
@@ -37,6 +37,9 @@ public interface UserChatRepository extends JpaRepository<UserChat, Long> {
     // find 할 때 메소드 명을 findActiveUserChat -> isDeletedFalse 보다 더 직관적
     Optional<UserChat> findByUserIdAndChatIdAndIsDeletedFalse(Long userId, Long chatId);
 
+    // [추가] 참여 여부만 확인 (ChatMemberCache 미스 시)
+    boolean existsByUserIdAndChatIdAndIsDeletedFalse(Long userId, Long chatId);
+
     // [추가] 단순 조회용: 락이 없는 메소드를 새로 추가
     Optional<UserChat> findReadVersionByUserIdAndChatIdAndIsDeletedFalse(Long userId, Long chatId);
 
@@ -68,6 +71,9 @@ public interface UserChatRepository extends JpaRepository<UserChat, Long> {
     @Query("SELECT uc.user.id FROM UserChat uc WHERE uc.chat.id = :chatId AND uc.isDeleted = false")
     List<Long> findUserIdsByChatId(@Param("chatId") Long chatId);
 
+    // [추가] 안 읽은 수 계산용 참여자 수 (참여자 행 조회 없이 COUNT만)
+    long countByChatIdAndIsDeletedFalse(Long chatId);
+
     @Query("SELECT uc.id FROM UserChat uc WHERE uc.chat.id = :chatId AND uc.isDeleted = false")
     List<Long> findIdsByChatId(@Param("chatId") Long chatId);
 }
\ No newline at end of file
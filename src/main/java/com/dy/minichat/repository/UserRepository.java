@@ -1,9 +1,13 @@
 package com.dy.minichat.repository;
 
 import com.dy.minichat.entity.User;
+import com.dy.minichat.entity.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +15,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
     Optional<Object> findByEmail(String email);
+
+    // [신규] 밴 필터 재구성용 - 엔티티 로딩 없이 ID만
+    @Query("select u.id from User u where u.userStatus = :status")
+    List<Long> findIdsByUserStatus(@Param("status") UserStatus status);
 }
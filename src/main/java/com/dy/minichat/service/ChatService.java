@@ -1,5 +1,9 @@
 package com.dy.minichat.service;
 
+import com.dy.minichat.component.ChatMemberCache;
+import com.dy.minichat.component.ChatMembershipIndex;
+import com.dy.minichat.component.LastReadIndex;
+import com.dy.minichat.config.id.AbstractIdGenerator;
 import com.dy.minichat.config.id.ChatIdGenerator;
 import com.dy.minichat.config.id.UserChatIdGenerator;
 import com.dy.minichat.dto.request.ChatRequestDTO;
@@ -7,6 +11,7 @@ import com.dy.minichat.dto.request.InviteRequestDTO;
 import com.dy.minichat.dto.response.UserChatResponseDTO;
 import com.dy.minichat.entity.*;
 import com.dy.minichat.event.SystemMessageEvent;
+import com.dy.minichat.global.id.IdBlock;
 import com.dy.minichat.repository.ChatRepository;
 import com.dy.minichat.repository.UserChatRepository;
 import com.dy.minichat.repository.UserRepository;
@@ -43,6 +48,15 @@ public class ChatService {
     private final RedisTemplate<String, String> redisTemplateForString;
     private final String serverIdentifier;
 
+    // 노드 로컬 채팅방 멤버 인덱스 (Redis Set 변경 후 반드시 함께 반영)
+    private final ChatMembershipIndex chatMembershipIndex;
+
+    // 채팅방별 읽음 위치 인덱스 (퇴장 시 제거)
+    private final LastReadIndex lastReadIndex;
+
+    // 참여 여부 니어 캐시 (초대/퇴장 커밋 후 무효화)
+    private final ChatMemberCache chatMemberCache;
+
     /*
         // K: userId, V: 현재 입장해 있는 roomId
         // key: WebSocket 세션, value: (현재 참여한) 채팅방 ID  (원본 코드: Long 단일 값)
@@ -172,12 +186,24 @@ public class ChatService {
     }
 
     private void associateUsersWithChat(Chat chat, List<User> users) {
-        for (User user : users) {
+        // [수정] 참여 row ID는 연속 블록으로 한 번에 예약 (유저마다 생성기 CAS 경합 없음)
+        //        UserChat이 신규 여부를 직접 관리하므로 saveAll은 row마다 SELECT 없이 INSERT만 수행
+        List<UserChat> userChats = new ArrayList<>(users.size());
+        IdBlock ids = null;
+        for (int i = 0; i < users.size(); i++) {
+            if (ids == null || !ids.hasNext()) {
+                ids = userChatIdGenerator.generateBlock(Math.min(users.size() - i, AbstractIdGenerator.MAX_BLOCK_SIZE));
+            }
             UserChat userChat = new UserChat();
-            userChat.setId(userChatIdGenerator.generate());
-            userChat.setUser(user);
+            userChat.setId(ids.next());
+            userChat.setUser(users.get(i));
             userChat.setChat(chat);
-            userChatRepository.save(userChat);
+            userChats.add(userChat);
+        }
+        userChatRepository.saveAll(userChats);
+
+        for (User user : users) {
+            chatMemberCache.markChanged(chat.getId(), user.getId());
         }
     }
 
@@ -191,13 +217,16 @@ public class ChatService {
         //  이전 방이 있다면 퇴장 처리
         //      사용자의 현재 chatId를 Redis에서 조회
         String oldChatIdStr = (String) redisTemplateForString.opsForHash().get(userKey, "chatId");
-        if (oldChatIdStr != null)
+        if (oldChatIdStr != null) {
             redisTemplateForString.opsForSet().remove("chatId:" + oldChatIdStr + ":userId", userIdStr);
+            chatMembershipIndex.leave(Long.parseLong(oldChatIdStr), userId);
+        }
 
         //  새로운 방 입장 처리
         String newChatKey = "chatId:" + chatId + ":userId";
         //      새로운 방의 유저 Set에 현재 유저를 추가
         redisTemplateForString.opsForSet().add(newChatKey, userIdStr);
+        chatMembershipIndex.join(chatId, userId);
 
         //  사용자의 현재 참여 채팅방 및 서버 정보 업데이트
         Map<String, String> userState = Map.of(
@@ -273,8 +302,13 @@ public class ChatService {
             String chatUsersKey = "chatId:" + lastChatIdStr + ":userId";
             // 해당 채팅방의 유저 목록(Set)에서 사용자 제거
             redisTemplateForString.opsForSet().remove(chatUsersKey, userIdStr);
+            chatMembershipIndex.leave(chatId, userId);
         }
 
+        // 퇴장한 유저는 안 읽은 수 집계 대상에서 제외
+        lastReadIndex.remove(chatId, userId);
+        chatMemberCache.markChanged(chatId, userId);
+
         // 2. 사용자의 세션 정보(Hash)를 완전히 삭제
         redisTemplateForString.delete(userKey);
 
@@ -290,14 +324,15 @@ public class ChatService {
     }
 
 
+    // 방송 경로는 BroadcastRouter가 인덱스를 직접 사용 (박싱 없음)
     public Set<Long> getUsersInChat(Long chatId) {
-        Set<String> userIdsStr = redisTemplateForString.opsForSet().members("chatId:" + chatId + ":userId");
+        long[] members = chatMembershipIndex.getMembers(chatId);
 
-        if (userIdsStr == null || userIdsStr.isEmpty())
+        if (members.length == 0)
             return Collections.emptySet();
 
-        return userIdsStr.stream()
-                .map(Long::valueOf)
+        return Arrays.stream(members)
+                .boxed()
                 .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
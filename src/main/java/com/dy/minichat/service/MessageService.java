@@ -1,10 +1,15 @@
 package com.dy.minichat.service;
 
 // import com.dy.minichat.component.TaskManager;
+import com.dy.minichat.component.ChatMemberCache;
+import com.dy.minichat.component.LastReadIndex;
+import com.dy.minichat.component.RecentMessageCache;
+import com.dy.minichat.component.RecentMessageCache.RecentMessage;
 import com.dy.minichat.config.id.MessageIdGenerator;
 import com.dy.minichat.dto.request.LastReadMessageRequestDTO;
 import com.dy.minichat.dto.request.MessageRequestDTO;
 import com.dy.minichat.dto.response.MessageResponseDTO;
+import com.dy.minichat.dto.response.MessageSliceResponseDTO;
 import com.dy.minichat.entity.*;
 import com.dy.minichat.repository.ChatRepository;
 import com.dy.minichat.repository.MessageRepository;
@@ -12,17 +17,19 @@ import com.dy.minichat.repository.UserChatRepository;
 import com.dy.minichat.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -41,23 +48,38 @@ public class MessageService {
 
     private final MessageIdGenerator messageIdGenerator;
 
+    // [신규] 채팅방별 최근 메시지 캐시 (첫 페이지 조회를 MySQL 대신 처리)
+    private final RecentMessageCache recentMessageCache;
+
     // == 메세지 API == //
     @Transactional
     public void createMessage (MessageRequestDTO dto, long senderId, long chatId) {
-        User sender = userRepository.findById(senderId).orElseThrow(() -> new IllegalArgumentException("유저 정보를 찾을 수 없습니다."));
-        Chat chat = chatRepository.findById(chatId).orElseThrow(() -> new IllegalArgumentException("채팅방 참여 정보를 찾을 수 없습니다."));
+        createMessage(dto, senderId, chatId, messageIdGenerator.generate());
+    }
 
+    // [신규] 호출 측에서 미리 발급한 ID로 저장 (write-behind 발행 실패 시 동기 저장 폴백에도 사용)
+    // [수정] 발신자/채팅방은 FK 설정용 프록시만 사용 (SELECT 없음)
+    //      권한(채팅방 참여 여부)은 WebSocketHandler에서 세션의 Redis 채팅방 상태로 이미 확인됨
+    //      -> 메시지 1건 저장 = INSERT 1회
+    @Transactional
+    public void createMessage (MessageRequestDTO dto, long senderId, long chatId, long messageId) {
         Message message = new Message();
-        message.setId(messageIdGenerator.generate());
-        message.setUser(sender);
-        message.setChat(chat);
+        message.setId(messageId);
+        message.setUser(userRepository.getReferenceById(senderId));
+        message.setChat(chatRepository.getReferenceById(chatId));
         message.setContent(dto.getContent());
 
         // save() 메서드 -> 저장된 Message 객체 반환
         // 이 savedMessage 객체는 id와 createdAt 값이 확실하게 보장됩니다
+        // (Message.isNew() == true 이므로 merge가 아닌 persist -> 사전 SELECT 없음)
         Message savedMessage = messageRepository.saveAndFlush(message);
         // ID(snowflake)와 createdAt이 보장된 savedMessage 객체를 업데이트 서비스에 전달합니다.
         userChatUpdateService.updateUserChatOnNewMessage(chatId, savedMessage);
+
+        // 발신자 이름은 조회하지 않음 (프록시) -> 캐시 조회 시 채움
+        pushRecentAfterCommit(chatId, new RecentMessage(
+                messageId, senderId, null, MessageType.TALK.name(), dto.getContent()
+        ));
     }
 
     // 시스템 메시지 생성 및 DB 저장 [입장] //
@@ -74,7 +96,9 @@ public class MessageService {
         systemMessage.setMessageType(MessageType.SYSTEM_ENTRY);
         systemMessage.setContent(userNames + "님이 입장했습니다.");
 
-        return messageRepository.save(systemMessage);
+        Message saved = messageRepository.save(systemMessage);
+        pushRecentAfterCommit(chat.getId(), toRecentMessage(saved));
+        return saved;
     }
 
     // 시스템 메시지 생성 및 DB 저장 [퇴장] //
@@ -87,40 +111,66 @@ public class MessageService {
         systemMessage.setMessageType(MessageType.SYSTEM_LEAVE);
         systemMessage.setContent(leavingUser.getName() + "님이 나갔습니다.");
 
-        return messageRepository.save(systemMessage);
+        Message saved = messageRepository.save(systemMessage);
+        pushRecentAfterCommit(chat.getId(), toRecentMessage(saved));
+        return saved;
     }
 
-    @Qualifier("redisTemplateForString")
-    private final RedisTemplate<String, String> redisTemplateForString;
-    private final RedisScript<Long> lastReadUpdateScript;
+    // [신규] 채팅방별 읽음 위치 인덱스 (읽음 갱신과 같은 Lua 스크립트에서 함께 갱신)
+    private final LastReadIndex lastReadIndex;
+
+    // [신규] 참여 여부 니어 캐시 (읽음 갱신마다 MySQL 조회하지 않도록)
+    private final ChatMemberCache chatMemberCache;
+
+    // 노드 간 시계 오차 허용 범위 - 이보다 미래 시각의 ID는 아직 발급될 수 없는 ID
+    private static final long MAX_CLOCK_SKEW_MS = 5_000L;
 
     // == 메세지 읽음 상태 업데이트 API == //
-    public void updateLastReadMessage (LastReadMessageRequestDTO dto, Long curUserId, Long chatId) {
+    // [수정] 갱신 여부 반환 (WebSocket READ_ACK는 실제로 바뀐 경우에만 읽음 확인 방송)
+    // [수정] 메시지 findById 제거 -> Snowflake 시각 + 참여 여부 캐시로 검증, 정상 경로는 Redis EVALSHA 1회
+    public boolean updateLastReadMessage (LastReadMessageRequestDTO dto, Long curUserId, Long chatId) {
 
-        String LAST_READ_KEY = "lastRead:user:%d:chat:%d";
-        String DIRTY_SET_KEY = "lastRead:dirty_keys";
+        Long lastMessageId = dto.getLastMessageId();
+        validateLastReadMessageId(lastMessageId, chatId);
 
-        Message lastMessage = messageRepository.findById(dto.getLastMessageId())
-                .orElseThrow(() -> new IllegalArgumentException("메시지를 찾을 수 없습니다."));
+        if (!chatMemberCache.isMember(chatId, curUserId)) {
+            throw new AccessDeniedException("채팅방 참여자가 아닙니다.");
+        }
 
         // [수정 1] findByUserIdAndChatId에 비관적 락이 적용되어 동시성 문제 방지
         // [수정 2] 비관적락의 비효율성으로 인한 추가 수정 -> 쿼리를 통한 최적화
+        // [수정 3] 키 템플릿(%d)이 그대로 전달되던 문제 수정 + 읽음 위치 인덱스 동시 갱신
 
         try {
-            Long result = redisTemplateForString.execute(
-                    lastReadUpdateScript,
-                    List.of(LAST_READ_KEY, DIRTY_SET_KEY),
-                    lastMessage.getId().toString()
-            );
-
-            if (result != null && result == 1L) {
-                log.info("✅ [Lua-Atomic] user={}, chat={}, lastMessageId={}", curUserId, chatId, lastMessage.getId());
+            boolean updated = lastReadIndex.update(chatId, curUserId, lastMessageId);
+
+            if (updated) {
+                log.info("✅ [Lua-Atomic] user={}, chat={}, lastMessageId={}", curUserId, chatId, lastMessageId);
             } else {
                 log.info("ℹ️ [Skipped] 기존 메시지보다 작거나 동일한 ID → 업데이트 안함");
             }
+            return updated;
 
         } catch (Exception e) {
             log.error("❌ Redis Lua script failed for user={}, chat={}, error={}", curUserId, chatId, e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+        메시지 ID 타당성 검증 (DB 조회 없음)
+        - 채팅방 ID와 메시지 ID는 같은 Snowflake 시계로 발급 -> 채팅방 생성 이전 시각의 메시지는 존재할 수 없음
+        - 현재 시각(+오차)보다 미래의 ID도 아직 발급될 수 없음
+        존재하지 않는 ID라도 이 범위 안이면 읽음 위치로만 쓰이므로(안 읽은 수 계산) 무해
+    */
+    private void validateLastReadMessageId(Long lastMessageId, Long chatId) {
+        if (lastMessageId == null || lastMessageId <= 0) {
+            throw new IllegalArgumentException("메시지를 찾을 수 없습니다.");
+        }
+        long issuedAt = messageIdGenerator.timestampOf(lastMessageId);
+        if (issuedAt < messageIdGenerator.timestampOf(chatId)
+                || issuedAt > System.currentTimeMillis() + MAX_CLOCK_SKEW_MS) {
+            throw new IllegalArgumentException("메시지를 찾을 수 없습니다.");
         }
     }
     // @Query(update userchat last_read_message_id = 11 ... last_read_message_id < 11)
@@ -155,71 +205,166 @@ public class MessageService {
         List<Message> messages = messagePage.getContent();
 
         if (messages.isEmpty()) return new ArrayList<>();
-        // 메세지 안읽은 사람 수 계산을 위한 참가자 정보 조회
-        List<UserChat> participants = userChatRepository.findByChatIdAndIsDeletedFalseWithLastReadMessage(chatId);
+        return toResponsesWithUnreadCounts(chatId, messages);
+    }
 
+    // == [신규] 커서 기반 메시지 목록 및 안 읽은 사람 수 반환 API == //
+    /*
+        beforeId / afterId 둘 다 없으면 최신 메시지부터 size개
+        - beforeId: 해당 ID보다 이전 메시지 (위로 스크롤)
+        - afterId : 해당 ID보다 이후 메시지 (재접속 후 따라잡기)
+        입장 시각은 Snowflake ID 하한(floorId)으로 바꿔 PK 범위 조건으로만 조회
+    */
+    public MessageSliceResponseDTO getMessageSliceWithUnreadCounts(Long chatId, Long userId, Long beforeId, Long afterId, int size) {
 
-        /*
-            어떤 메시지를 몇 명이 마지막으로 읽었는지
-            lastReadMessageId가 각각 (101, 103, 103, 105, 105)
-            readCountMap : {101: 1L, 103: 2L, 105: 2L}
-            => messageId 101 : 1명 , messageId 103 : 2명...
-            ===> readCntMap를 그냥 client에 줘버리기 -> 더 효율적일수도 있음.
-                클라이언트에서 핸들링하기 더 쉬움
-        */
+        UserChat userChat = userChatRepository.findReadVersionByUserIdAndChatIdAndIsDeletedFalse(userId, chatId)
+                .orElseThrow(() -> new IllegalArgumentException("채팅방 참여 정보를 찾을 수 없습니다."));
+        long floorId = messageIdGenerator.minIdAt(
+                userChat.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+        );
 
-        // Redis에서 각 참여자의 lastReadMessageId 가져오기 => 레디스 N + 1 발생 : 레디스에서의 시간복잡도는 바로 네트워크에 영향이 가서 매우 잘 고려해야함 => MGET(pipeline 하위버전)!! 1번!!
-        List<String> redisKeys = participants.stream()
-                .map(p -> String.format("lastRead:user:%d:chat:%d", p.getUser().getId(), chatId))
-                .toList();
+        // [신규] 요청 범위를 최근 메시지 캐시만으로 채울 수 있으면 MySQL 조회 생략
+        MessageSliceResponseDTO cached = sliceFromRecentCache(chatId, floorId, beforeId, afterId, size);
+        if (cached != null) return cached;
 
-        // MGET으로 일괄 조회
-        // MGET 이 안될 때 redispipeline 사용
-        List<String> redisValues = redisTemplateForString.opsForValue().multiGet(redisKeys);
+        Pageable limit = PageRequest.of(0, size);
+        Slice<Message> slice;
+        List<Message> messages;
 
-        Map<Long, Long> userLastReadMap = new HashMap<>();
-        for (int i = 0; i < participants.size(); i++) {
-            UserChat participant = participants.get(i);
-            String redisValue = redisValues.get(i);
+        if (afterId != null) {
+            slice = messageRepository.findSliceAfter(chatId, Math.max(afterId, floorId - 1), limit);
+            messages = slice.getContent();
+        } else {
+            long upperId = (beforeId != null) ? beforeId : Long.MAX_VALUE;
+            slice = messageRepository.findSliceBefore(chatId, upperId, floorId, limit);
 
-            Long lastReadId = null;
-            if (redisValue != null) {
-                lastReadId = Long.parseLong(redisValue);
-            } else if (participant.getLastReadMessage() != null) {
-                // fallback
-                lastReadId = participant.getLastReadMessage().getId();
+            // 첫 페이지를 MySQL에서 읽었다면 캐시가 비어 있는 방 -> 다음 조회부터 캐시 사용
+            if (beforeId == null) {
+                recentMessageCache.warm(chatId, slice.getContent().stream().map(this::toRecentMessage).toList());
+            }
+
+            // 최신순으로 조회했으므로 응답은 오래된 순으로 뒤집음
+            messages = new ArrayList<>(slice.getContent());
+            Collections.reverse(messages);
+        }
+
+        return new MessageSliceResponseDTO(toResponsesWithUnreadCounts(chatId, messages), slice.hasNext());
+    }
+
+    /*
+        캐시 = 가장 오래된 캐시 메시지 이후의 모든 메시지 (연속 구간)
+        - beforeId 방향: 범위 안에 size + 1개 이상 있거나, 캐시가 입장 시점(floorId) 이전까지 덮고 있을 때만 사용
+        - afterId 방향 : 커서가 캐시 구간 안에 있을 때만 사용
+        @return 캐시로 처리할 수 없으면 null (MySQL 폴백)
+    */
+    private MessageSliceResponseDTO sliceFromRecentCache(Long chatId, long floorId, Long beforeId, Long afterId, int size) {
+        List<RecentMessage> newestFirst = recentMessageCache.getNewestFirst(chatId);
+        if (newestFirst.isEmpty()) return null;
+        long oldestCachedId = newestFirst.get(newestFirst.size() - 1).getId();
+
+        List<RecentMessage> window = new ArrayList<>();
+        boolean hasNext;
+
+        if (afterId != null) {
+            long lowerId = Math.max(afterId, floorId - 1);
+            if (lowerId < oldestCachedId) return null;
+
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                if (newestFirst.get(i).getId() > lowerId) window.add(newestFirst.get(i));
+            }
+            hasNext = window.size() > size;
+            if (hasNext) window = new ArrayList<>(window.subList(0, size));
+        } else {
+            long upperId = (beforeId != null) ? beforeId : Long.MAX_VALUE;
+            for (RecentMessage message : newestFirst) {
+                if (message.getId() < upperId && message.getId() >= floorId) window.add(message);
+            }
+
+            if (window.size() > size) {
+                hasNext = true;
+                window = new ArrayList<>(window.subList(0, size));
+            } else if (oldestCachedId < floorId) {
+                hasNext = false;
+            } else {
+                return null;
             }
+            Collections.reverse(window);
+        }
+
+        fillSenderNames(window);
+        return new MessageSliceResponseDTO(toResponsesFromRecent(chatId, window), hasNext);
+    }
+
+    // 동기 저장 경로로 들어온 메시지는 발신자 이름이 없음 -> 한 번에 조회
+    private void fillSenderNames(List<RecentMessage> messages) {
+        Set<Long> missing = new HashSet<>();
+        for (RecentMessage message : messages) {
+            if (message.getSenderName() == null && message.getSenderId() != null) missing.add(message.getSenderId());
+        }
+        if (missing.isEmpty()) return;
 
-            if (lastReadId != null) {
-                userLastReadMap.put(participant.getUser().getId(), lastReadId);
+        Map<Long, String> names = userRepository.findAllById(missing).stream()
+                .collect(Collectors.toMap(User::getId, User::getName));
+        for (RecentMessage message : messages) {
+            if (message.getSenderName() == null && message.getSenderId() != null) {
+                message.setSenderName(names.get(message.getSenderId()));
             }
         }
+    }
 
-        // 4 messageId별 읽은 인원 수 집계
-        Map<Long, Long> readCntMap = userLastReadMap.values().stream()
-                .collect(Collectors.groupingBy(id -> id, Collectors.counting()));
+    private RecentMessage toRecentMessage(Message message) {
+        boolean talk = message.getMessageType() == MessageType.TALK;
+        return new RecentMessage(
+                message.getId(),
+                talk ? message.getUser().getId() : null,
+                talk ? message.getUser().getName() : null,
+                message.getMessageType().name(),
+                message.getContent()
+        );
+    }
+
+    // 롤백된 메시지가 캐시에 남지 않도록 커밋 이후 적재
+    private void pushRecentAfterCommit(Long chatId, RecentMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentMessageCache.push(chatId, message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentMessageCache.push(chatId, message);
+            }
+        });
+    }
 
-        // 누적 읽은 사람 수
-        List<MessageResponseDTO> resultList = new ArrayList<>();
-        long totalParticipants = participants.size();
-        long cumulativeReadCnt = 0; // 현재까지 '읽은' 사람의 누적 합계
+    /*
+        [수정] 안 읽은 사람 수 = lastReadMessageId < messageId 인 참여자 수
+        - 참여자들의 lastReadMessageId를 정렬한 배열에서 이분 탐색 -> 메시지당 O(log N)
+        - 기존 누적 방식은 페이지 이전 메시지까지 읽은 참여자를 집계하지 못해 페이지가 바뀌면 값이 틀어짐
+    */
+    private List<MessageResponseDTO> toResponsesWithUnreadCounts(Long chatId, List<Message> messages) {
+        if (messages.isEmpty()) return new ArrayList<>();
+        return toResponsesFromRecent(chatId, messages.stream().map(this::toRecentMessage).toList());
+    }
 
-        for (Message message : messages) {  // 시간순으로 정렬된 메시지
-            long messageId = message.getId();
+    private List<MessageResponseDTO> toResponsesFromRecent(Long chatId, List<RecentMessage> messages) {
+        if (messages.isEmpty()) return new ArrayList<>();
 
-            if (readCntMap.containsKey(messageId))
-                cumulativeReadCnt += readCntMap.get(messageId);
+        UnreadCounter unreadCounter = loadUnreadCounter(chatId, messages);
 
-            long unreadCnt = totalParticipants - cumulativeReadCnt;
+        List<MessageResponseDTO> resultList = new ArrayList<>(messages.size());
+        for (RecentMessage message : messages) {  // 시간순으로 정렬된 메시지
+            int unreadCnt = unreadCounter.count(message.getId());
+            MessageType messageType = MessageType.valueOf(message.getMessageType());
 
             Long senderId;
             String senderName;
 
             // 메시지 타입 확인
             //      일반 대화(TALK) 메시지 => 실제 유저 정보 사용
-            if (message.getMessageType() == MessageType.TALK) {
-                senderId = message.getUser().getId();
-                senderName = message.getUser().getName();
+            if (messageType == MessageType.TALK) {
+                senderId = message.getSenderId();
+                senderName = message.getSenderName();
             }
             //      시스템 메시지(SYSTEM_ENTRY, SYSTEM_LEAVE 등) => 약속된 시스템 ID 사용
             else {
@@ -231,13 +376,109 @@ public class MessageService {
                     message.getId(),
                     senderId,
                     senderName,
-                    message.getChat().getId(),
+                    chatId,
                     message.getContent(),
-                    message.getMessageType(),
-                    (int) unreadCnt
+                    messageType,
+                    unreadCnt
             ));
         }
 
         return resultList;
     }
-}
\ No newline at end of file
+
+    private interface UnreadCounter {
+        int count(long messageId);
+    }
+
+    /*
+        [수정] 페이지의 안 읽은 수 계산 재료 조회
+        - 평소: 참여자 수(COUNT 쿼리) + 읽음 위치 인덱스 구간 조회(Redis 왕복 1회), 참여자 행/MGET 없음
+        - 인덱스가 없는 방(최초 조회): 기존 방식으로 읽음 위치를 모아 인덱스를 구축하고 그 값으로 계산
+        - Redis 장애 시: 기존 방식(정렬 배열 + 이분 탐색)으로 계산
+    */
+    private UnreadCounter loadUnreadCounter(Long chatId, List<RecentMessage> messages) {
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        for (RecentMessage message : messages) {
+            minId = Math.min(minId, message.getId());
+            maxId = Math.max(maxId, message.getId());
+        }
+
+        try {
+            LastReadIndex.Snapshot snapshot = lastReadIndex.scan(chatId, minId, maxId);
+            if (snapshot != null) {
+                long participants = userChatRepository.countByChatIdAndIsDeletedFalse(chatId);
+                return messageId -> snapshot.unreadCount(participants, messageId);
+            }
+        } catch (Exception e) {
+            log.error("[읽음 인덱스] 조회 실패, 참여자 전체 조회로 대체. chat: {}", chatId, e);
+            long[] sortedLastReadIds = toSortedArray(loadLastReadIds(chatId));
+            return messageId -> countLessThan(sortedLastReadIds, messageId);
+        }
+
+        Map<Long, Long> lastReads = loadLastReadIds(chatId);
+        try {
+            Map<Long, Long> readers = new HashMap<>();
+            lastReads.forEach((userId, lastReadId) -> {
+                if (lastReadId >= 0) readers.put(userId, lastReadId);
+            });
+            lastReadIndex.build(chatId, readers);
+        } catch (Exception e) {
+            log.error("[읽음 인덱스] 구축 실패. chat: {}", chatId, e);
+        }
+
+        long[] sortedLastReadIds = toSortedArray(lastReads);
+        return messageId -> countLessThan(sortedLastReadIds, messageId);
+    }
+
+    // K: 참여자 userId, V: lastReadMessageId (읽은 기록이 없으면 -1)
+    private Map<Long, Long> loadLastReadIds(Long chatId) {
+        // 메세지 안읽은 사람 수 계산을 위한 참가자 정보 조회
+        List<UserChat> participants = userChatRepository.findByChatIdAndIsDeletedFalseWithLastReadMessage(chatId);
+
+        // Redis에서 각 참여자의 lastReadMessageId 가져오기 => 레디스 N + 1 발생 : 레디스에서의 시간복잡도는 바로 네트워크에 영향이 가서 매우 잘 고려해야함 => MGET(pipeline 하위버전)!! 1번!!
+        // [수정] 채팅방당 HASH 1개 -> HGETALL 1번
+        Map<Long, Long> redisValues = null;
+        try {
+            redisValues = lastReadIndex.getAll(chatId);
+        } catch (Exception e) {
+            log.error("[읽음 위치] HGETALL 실패, DB 값 사용. chat: {}", chatId, e);
+        }
+
+        Map<Long, Long> lastReadIds = new HashMap<>(participants.size() * 2);
+        for (int i = 0; i < participants.size(); i++) {
+            UserChat participant = participants.get(i);
+            Long redisValue = (redisValues == null) ? null : redisValues.get(participant.getUser().getId());
+
+            long lastReadId = -1L;
+            if (redisValue != null) {
+                lastReadId = redisValue;
+            } else if (participant.getLastReadMessage() != null) {
+                // fallback
+                lastReadId = participant.getLastReadMessage().getId();
+            }
+            lastReadIds.put(participant.getUser().getId(), lastReadId);
+        }
+        return lastReadIds;
+    }
+
+    private static long[] toSortedArray(Map<Long, Long> lastReadIds) {
+        long[] sorted = new long[lastReadIds.size()];
+        int i = 0;
+        for (Long lastReadId : lastReadIds.values()) {
+            sorted[i++] = lastReadId;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // sorted 배열에서 value보다 작은 원소 수 (lower bound)
+    private static int countLessThan(long[] sorted, long value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -1,107 +1,272 @@
 package com.dy.minichat.service;
 
+import com.dy.minichat.component.LastReadIndex;
+import com.dy.minichat.component.ShardLeaseManager;
+import com.dy.minichat.config.id.MessageIdGenerator;
+import com.dy.minichat.property.LastReadSyncProperties;
+import com.dy.minichat.repository.MessageJdbcRepository;
 import com.dy.minichat.repository.UserChatJdbcRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
+/*
+    읽음 위치 Redis -> MySQL 동기화
+
+    기존: 1분마다 dirty 키 1000개를 꺼내 키마다 GET 1회 (순차) -> 부하가 몰리면 쌓이는 속도를 못 따라감
+    [수정] 연속 드레인
+    - 워커 N개가 dirty 샤드를 나눠 맡아 계속 드레인 (샤드당 SPOP 1회 + 채팅방별 HMGET 파이프라인 1회 -> JDBC 배치 1회)
+    - 배치 크기는 백로그에 따라 자동 조절 (가득 차서 꺼내지면 2배, 덜 차면 절반, min~max 범위)
+    - 모든 샤드가 비면 idleDelayMs 동안 대기
+    - 여러 노드가 동시에 돌아도 SPOP이 원자적이라 같은 변경분을 두 노드가 처리하지 않음
+      (DB 반영 실패로 다시 넣은 변경분은 중복 반영될 수 있으나 UPDATE가 "더 큰 ID일 때만"이라 무해)
+    - [수정] 샤드는 노드별로 나눠 맡음 (ShardLeaseManager) -> 모든 노드가 같은 샤드/MySQL에 동시에 몰리지 않음
+    - [수정] 0 row 갱신 처리 - write-behind(MessagePersistConsumer)보다 읽음 ACK가 먼저 오면 메시지가 아직 없어 UPDATE가 0 row
+      -> 메시지가 아직 없는 변경분은 dirty로 되돌려 재시도, 메시지 발급 후 missingMessageRetryMs가 지나도 없으면 폐기
+         (이미 더 큰 읽음 위치가 반영되어 0 row인 경우는 메시지가 있으므로 그대로 완료)
+    - 메트릭: 백로그(minichat.lastread.sync.backlog), 처리량(minichat.lastread.sync.synced), 재시도(.deferred), 폐기(.dropped),
+             배치 크기/지연
+*/
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RedisSchedulerService {
 
     private final UserChatJdbcRepository userChatJdbcRepository;
+    private final MessageJdbcRepository messageJdbcRepository;
+    private final MessageIdGenerator messageIdGenerator;
+
+    // [수정] 읽음 위치 저장 구조(채팅방 HASH + 샤드별 dirty set)는 LastReadIndex가 관리
+    private final LastReadIndex lastReadIndex;
+    private final LastReadSyncProperties properties;
+    private final ExecutorService lastReadSyncExecutor;
+    private final ShardLeaseManager shardLeaseManager;
+
+    private static final String SYNC_JOB = "lastread-sync";
+
+    // 샤드별 마지막으로 측정한 백로그 (각 샤드는 워커 1개만 갱신)
+    private final AtomicLongArray backlog = new AtomicLongArray(LastReadIndex.DIRTY_SHARDS);
+
+    private final Counter syncedCounter;
+    private final Counter failedCounter;
+    private final Counter deferredCounter;
+    private final Counter droppedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchLatency;
+
+    private volatile boolean running;
 
-    @Qualifier("redisTemplateForLong")
-    private final RedisTemplate<String, Long> redisTemplateForLong;
-    @Qualifier("redisTemplateForString")
-    private final RedisTemplate<String, String> redisTemplateForString;
-
-    private static final String DIRTY_SET_KEY = "lastRead:dirty_keys";
-    private static final int BATCH_SIZE = 1000; // 만개는 위험함
-
-    @Scheduled(fixedDelay = 60000)
-    @Transactional
-    public void syncLastReadMessagesToDB() {
-        log.info("🕒 [Scheduler] Syncing lastReadMessage from Redis to DB...");
-        /*
-            // Dirty set에서 모든 키 가져오기
-            Set<String> dirtyKeys = redisTemplateForString.opsForSet().members(DIRTY_SET_KEY);
-            => 문제 상황: 트래픽이 몰리거나 스케줄러가 잠시 멈춰서 Dirty Set에 100만 개의 키가 쌓이면, 이 코드는 100만 개의 문자열을 메모리에 로드하려다 **OutOfMemoryError(OOM)**로 인해 서버가 다운
-         */
-
-        List<String> dirtyKeys = redisTemplateForString.opsForSet().pop(DIRTY_SET_KEY, BATCH_SIZE);
-        if (dirtyKeys == null || dirtyKeys.isEmpty()) {
-            log.info("⚪ [Scheduler] No dirty keys found.");
-            return;
+    public RedisSchedulerService(
+            UserChatJdbcRepository userChatJdbcRepository,
+            MessageJdbcRepository messageJdbcRepository,
+            MessageIdGenerator messageIdGenerator,
+            LastReadIndex lastReadIndex,
+            LastReadSyncProperties properties,
+            @Qualifier("lastReadSyncExecutor") ExecutorService lastReadSyncExecutor,
+            ShardLeaseManager shardLeaseManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.userChatJdbcRepository = userChatJdbcRepository;
+        this.messageJdbcRepository = messageJdbcRepository;
+        this.messageIdGenerator = messageIdGenerator;
+        this.lastReadIndex = lastReadIndex;
+        this.properties = properties;
+        this.lastReadSyncExecutor = lastReadSyncExecutor;
+        this.shardLeaseManager = shardLeaseManager;
+
+        Gauge.builder("minichat.lastread.sync.backlog", backlog, RedisSchedulerService::sum)
+                .register(meterRegistry);
+        this.syncedCounter = Counter.builder("minichat.lastread.sync.synced").register(meterRegistry);
+        this.failedCounter = Counter.builder("minichat.lastread.sync.failed").register(meterRegistry);
+        this.deferredCounter = Counter.builder("minichat.lastread.sync.deferred").register(meterRegistry);
+        this.droppedCounter = Counter.builder("minichat.lastread.sync.dropped").register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("minichat.lastread.sync.batch.size").register(meterRegistry);
+        this.batchLatency = Timer.builder("minichat.lastread.sync.batch.latency").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        int workers = Math.max(1, Math.min(properties.getWorkers(), LastReadIndex.DIRTY_SHARDS));
+        for (int worker = 0; worker < workers; worker++) {
+            int first = worker;
+            lastReadSyncExecutor.execute(() -> drainLoop(first, workers));
         }
+        log.info("🕒 [LastRead Sync] 연속 드레인 시작. 워커 {}개, 샤드 {}개", workers, LastReadIndex.DIRTY_SHARDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
 
-        List<UserChatJdbcRepository.UserChatUpdate> batchList = new ArrayList<>();
+    /*
+        Dirty set에서 모든 키 가져오기
+        Set<String> dirtyKeys = redisTemplateForString.opsForSet().members(DIRTY_SET_KEY);
+        => 문제 상황: 트래픽이 몰리거나 스케줄러가 잠시 멈춰서 Dirty Set에 100만 개의 키가 쌓이면, 이 코드는 100만 개의 문자열을 메모리에 로드하려다 **OutOfMemoryError(OOM)**로 인해 서버가 다운
+        => SPOP count로 나눠서 꺼냄 (샤드당 최대 maxBatchSize)
+    */
+    // 워커 1개: shard = first, first + step, ... 를 돌아가며 드레인
+    private void drainLoop(int first, int step) {
+        int[] shards = IntStream.iterate(first, s -> s < LastReadIndex.DIRTY_SHARDS, s -> s + step).toArray();
+        int[] batchSizes = new int[shards.length];
+        Arrays.fill(batchSizes, properties.getMinBatchSize());
+        long nextSampleAt = 0L;
 
-        for (String key : dirtyKeys) {
+        while (running && !Thread.currentThread().isInterrupted()) {
             try {
-                Long lastMessageId = redisTemplateForLong.opsForValue().get(key);
-                if (lastMessageId == null) continue;
+                long now = System.currentTimeMillis();
+                if (now >= nextSampleAt) {
+                    sampleBacklog(shards, batchSizes);
+                    nextSampleAt = now + properties.getBacklogSampleIntervalMs();
+                }
 
-                String[] parts = key.split(":");
-                if (parts.length < 6) continue;
+                boolean drained = false;
+                for (int i = 0; i < shards.length; i++) {
+                    // 이 노드에 배정된 샤드만 드레인
+                    if (!shardLeaseManager.owns(SYNC_JOB, shards[i])) continue;
 
-                Long userId = Long.parseLong(parts[2]);
-                Long chatId = Long.parseLong(parts[4]);
+                    int popped = drainShard(shards[i], batchSizes[i]);
+                    batchSizes[i] = nextBatchSize(batchSizes[i], popped);
+                    drained |= popped > 0;
+                }
 
-                batchList.add(new UserChatJdbcRepository.UserChatUpdate(
-                        userId, chatId, lastMessageId, key
-                ));
+                if (!drained) Thread.sleep(properties.getIdleDelayMs());
 
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
-                log.error("Failed to parse Redis key={}", key, e);
-            }
-
-            // 배치 크기 도달 시 DB에 반영
-            if (batchList.size() >= BATCH_SIZE) {
-                executeBatch(batchList);
-                batchList.clear();
+                // Redis 장애 등 - 잠시 쉬고 재시도 (워커 스레드가 죽지 않도록)
+                log.error("❌ [LastRead Sync] 드레인 실패, {}ms 후 재시도", properties.getIdleDelayMs(), e);
+                sleepQuietly(properties.getIdleDelayMs());
             }
         }
+        log.info("[LastRead Sync] 워커 종료. shards={}", Arrays.toString(shards));
+    }
 
-        // 남은 배치 처리
-        if (!batchList.isEmpty()) {
-            executeBatch(batchList);
-        }
+    // @return 꺼낸 변경분 중 처리를 끝낸 수 (메시지 INSERT 대기로 되돌린 변경분 제외 -> 그것만 남으면 idle 대기)
+    private int drainShard(int shard, int batchSize) {
+        List<LastReadIndex.DirtyLastRead> batch = lastReadIndex.popDirty(shard, batchSize);
+        if (batch.isEmpty()) return 0;
 
-        log.info("✅ Redis → DB sync complete.");
+        batchSizeSummary.record(batch.size());
+        Timer.Sample sample = Timer.start();
+        int deferred = executeBatch(batch);
+        sample.stop(batchLatency);
+        return batch.size() - deferred;
     }
 
-    private void executeBatch(List<UserChatJdbcRepository.UserChatUpdate> batch) {
+    // @return 메시지가 아직 없어 dirty로 되돌린 변경분 수
+    private int executeBatch(List<LastReadIndex.DirtyLastRead> batch) {
+        List<UserChatJdbcRepository.UserChatUpdate> updates = new ArrayList<>(batch.size());
+        for (LastReadIndex.DirtyLastRead read : batch) {
+            updates.add(new UserChatJdbcRepository.UserChatUpdate(
+                    read.getUserId(), read.getChatId(), read.getLastReadMessageId()
+            ));
+        }
+
+        int[] counts;
         try {
-            userChatJdbcRepository.batchUpdateLastRead(batch);
+            counts = userChatJdbcRepository.batchUpdateLastRead(updates);
+        } catch (Exception e) {
+            log.error("❌ Batch DB update failed, will retry.", e);
+            failedCounter.increment(batch.size());
+
+            // 실패 시 Dirty Set 복구 → 다음 드레인에서 재시도
+            lastReadIndex.markDirty(batch);
+
+            // 만약 정합성이 정말 중요한 부분이면
+            // 카프카로 실패 이벤트 발행 * 2,3번 -> 이래도 실패? -> 로그 찍어서 손수 해결
+            return 0;
+        }
 
-            // 성공한 키 Dirty Set에서 제거
-            String[] keysToRemoveFromCache = batch.stream()
-                    .map(UserChatJdbcRepository.UserChatUpdate::getDirtyKey)
-                    .toArray(String[]::new);
+        // 0 row(또는 드라이버가 갱신 수를 알려주지 않은 row)만 메시지 존재 여부 확인
+        List<LastReadIndex.DirtyLastRead> unconfirmed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] <= 0) unconfirmed.add(batch.get(i));
+        }
+        if (unconfirmed.isEmpty()) {
+            syncedCounter.increment(batch.size());
+            log.debug("📦 Batch of {} read markers synced to DB.", batch.size());
+            return 0;
+        }
 
-            redisTemplateForLong.delete(List.of(keysToRemoveFromCache));
+        Set<Long> existing = messageJdbcRepository.findExistingIds(
+                unconfirmed.stream().map(LastReadIndex.DirtyLastRead::getLastReadMessageId).distinct().toList()
+        );
+        long retryFrom = System.currentTimeMillis() - properties.getMissingMessageRetryMs();
+        List<LastReadIndex.DirtyLastRead> retry = new ArrayList<>();
+        int dropped = 0;
+        for (LastReadIndex.DirtyLastRead read : unconfirmed) {
+            long messageId = read.getLastReadMessageId();
+            if (existing.contains(messageId)) continue;   // 이미 더 큰 읽음 위치가 반영됨 -> 완료
 
-            log.info("📦 Batch of {} keys synced to DB.", batch.size());
+            if (messageIdGenerator.timestampOf(messageId) >= retryFrom) {
+                retry.add(read);
+            } else {
+                dropped++;
+                log.warn("[LastRead Sync] 저장되지 않은 메시지를 가리키는 읽음 위치 폐기. chat: {}, user: {}, message: {}",
+                        read.getChatId(), read.getUserId(), messageId);
+            }
+        }
 
-        } catch (Exception e) {
-            log.error("❌ Batch DB update failed, will retry next schedule.", e);
+        // 실패 시 예외 -> drainLoop에서 재시도 대기 (이미 반영된 row는 "더 큰 ID일 때만" 조건으로 중복 반영 무해)
+        if (!retry.isEmpty()) lastReadIndex.markDirty(retry);
 
-            // 실패 시 Dirty Set 유지 → 다음 스케줄러에서 재시도
-            String[] keysToReAdd = batch.stream()
-                    .map(UserChatJdbcRepository.UserChatUpdate::getDirtyKey)
-                    .toArray(String[]::new);
-            redisTemplateForString.opsForSet().add(DIRTY_SET_KEY, keysToReAdd);
+        deferredCounter.increment(retry.size());
+        droppedCounter.increment(dropped);
+        syncedCounter.increment(batch.size() - retry.size() - dropped);
+        log.debug("📦 Batch of {} read markers synced to DB. deferred: {}, dropped: {}", batch.size(), retry.size(), dropped);
+        return retry.size();
+    }
 
-            // 만약 정합성이 정말 중요한 부분이면
-            // 카프카로 실패 이벤트 발행 * 2,3번 -> 이래도 실패? -> 로그 찍어서 손수 해결
+    // 백로그 측정 + 배치 크기를 백로그에 맞춤 (밀려 있으면 바로 큰 배치로 시작)
+    private void sampleBacklog(int[] shards, int[] batchSizes) {
+        for (int i = 0; i < shards.length; i++) {
+            // 백로그 메트릭은 샤드 소유 노드만 보고 (노드 합계 = 전체 백로그)
+            if (!shardLeaseManager.owns(SYNC_JOB, shards[i])) {
+                backlog.set(shards[i], 0L);
+                continue;
+            }
+            long size = lastReadIndex.dirtyBacklog(shards[i]);
+            backlog.set(shards[i], size);
+            batchSizes[i] = clamp(size);
+        }
+    }
+
+    private int nextBatchSize(int current, int popped) {
+        if (popped >= current) return clamp((long) current * 2);   // 가득 참 -> 백로그가 더 있음
+        return clamp(Math.max(popped, current / 2));
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(properties.getMinBatchSize(), Math.min(properties.getMaxBatchSize(), size));
+    }
+
+    private static double sum(AtomicLongArray values) {
+        long total = 0L;
+        for (int i = 0; i < values.length(); i++) {
+            total += values.get(i);
+        }
+        return total;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.dy.minichat.service;
+
+import com.dy.minichat.config.id.UndeliveredMessageIdGenerator;
+import com.dy.minichat.dto.message.TalkMessageDTO;
+import com.dy.minichat.entity.UndeliveredMessage;
+import com.dy.minichat.repository.UndeliveredMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UndeliveredMessageService {
+    private final UndeliveredMessageRepository undeliveredMessageRepository;
+    private final UndeliveredMessageIdGenerator undeliveredMessageIdGenerator;
+    private final FcmPushService fcmPushService;
+
+    /**
+     * 실시간 전달이 불가능한 수신자(오프라인, 송신 큐 초과 등)에 대해
+     * 미전달 메시지를 저장하고 FCM 푸시를 보냅니다.
+     */
+    public void saveAndSendPush(Long chatId, Long receiverId, TalkMessageDTO message) {
+        UndeliveredMessage undelivered = UndeliveredMessage.builder()
+                .id(undeliveredMessageIdGenerator.generate())
+                .chatId(chatId)
+                .senderId(message.getSenderId())
+                .receiverId(receiverId)
+                .content(message.getContent())
+                .build();
+        undeliveredMessageRepository.save(undelivered);
+        fcmPushService.sendPushNotification(receiverId, message);
+    }
+}
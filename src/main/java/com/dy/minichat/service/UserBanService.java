@@ -1,5 +1,6 @@
 package com.dy.minichat.service;
 
+import com.dy.minichat.component.BanStatusCache;
 import com.dy.minichat.entity.UserStatus;
 import com.dy.minichat.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class UserBanService { // UserBanServiceCGlibProxy...
     private final UserRepository userRepository;
+    private final BanStatusCache banStatusCache; // [신규] 프레임마다 Redis/DB를 조회하지 않도록
 
     @Qualifier("redisTemplateForString")
     private final RedisTemplate<String, String> redisTemplateForString;
@@ -50,12 +52,14 @@ public class UserBanService { // UserBanServiceCGlibProxy...
             log.warn("!!! [Strike 1] 사용자 {} 밴 처리 (1일)", userId);
             // "SET ban:state:user:123 "STRIKE_1" EX 86400"
             redisTemplateForString.opsForValue().set(tempBanKey, "STRIKE_1", 1, TimeUnit.DAYS);
+            banStatusCache.markTempBanned(userId, TimeUnit.DAYS.toMillis(1));
 
         } else if (strikeCount == 2) {
             // [Strike 2] 1주일 밴 적용
             log.warn("!!! [Strike 2] 사용자 {} 밴 처리 (1주일)", userId);
             // "SET ban:state:user:123 "STRIKE_2" EX 604800"
             redisTemplateForString.opsForValue().set(tempBanKey, "STRIKE_2", 7, TimeUnit.DAYS);
+            banStatusCache.markTempBanned(userId, TimeUnit.DAYS.toMillis(7));
 
         } else {
             // [Strike 3] 영구 밴 적용
@@ -82,6 +86,7 @@ public class UserBanService { // UserBanServiceCGlibProxy...
                 return;
             }
             user.setUserStatus(UserStatus.BAN);
+            banStatusCache.markBanned(userId); // 커밋 이후 전파
             log.warn("🚫 사용자 {} 밴 처리 완료 (DB 업데이트)", userId);
         }, () -> {
             log.warn("[UserBanService] 존재하지 않는 사용자: {}", userId);
@@ -92,11 +97,15 @@ public class UserBanService { // UserBanServiceCGlibProxy...
     /**
      * [호출] HandshakeInterceptor 또는 로그인 API
      * 사용자가 밴 상태인지 (임시 밴 or 영구 밴) 확인합니다.
+     * [수정] 니어 캐시 경유 - 밴된 적 없는 유저는 I/O 없이 통과, 캐시 미스일 때만 원본 조회
+     *        (프레임마다 호출되므로 쓰기 트랜잭션 제거, findById는 리포지토리 자체 트랜잭션으로 충분)
      */
-    // @Transactional(readOnly = true)
-    @Transactional
     public boolean isUserBanned(Long userId) {
         if (userId == null) return true; // (정책) ID 없는 접근은 차단
+        return banStatusCache.isBanned(userId, this::loadBanStatus);
+    }
+
+    private boolean loadBanStatus(long userId) {
         String tempBanKey = TEMP_BAN_KEY_PREFIX + userId;
 
         try {
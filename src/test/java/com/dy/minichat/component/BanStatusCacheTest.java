@@ -0,0 +1,114 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.entity.UserStatus;
+import com.dy.minichat.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class BanStatusCacheTest {
+
+    @Test
+    @DisplayName("밴 필터는 넣은 ID를 놓치지 않고, 넣지 않은 ID의 오탐은 드물다")
+    void filterHasNoFalseNegatives() {
+        BanStatusCache.BanFilter filter = new BanStatusCache.BanFilter(10_000);
+        for (long id = 1; id <= 10_000; id++) filter.put(id * 4096);
+
+        for (long id = 1; id <= 10_000; id++) {
+            assertThat(filter.mightContain(id * 4096)).isTrue();
+        }
+        int falsePositives = 0;
+        for (long id = 10_001; id <= 110_000; id++) {
+            if (filter.mightContain(id * 4096)) falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(3_000); // 3% 미만
+    }
+
+    @Test
+    @DisplayName("밴된 적 없는 유저는 원본을 조회하지 않고, 밴된 유저는 조회 결과를 캐시한다")
+    void skipsLoaderForUsersOutsideFilter() {
+        BanStatusCache cache = startedCache(List.of(7L));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.isBanned(8L, id -> { loads.incrementAndGet(); return false; })).isFalse();
+        assertThat(loads).hasValue(0);
+
+        assertThat(cache.isBanned(7L, id -> { loads.incrementAndGet(); return true; })).isTrue();
+        assertThat(cache.isBanned(7L, id -> { loads.incrementAndGet(); return true; })).isTrue();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("밴 적용 후에는 필터에 추가되어 바로 원본을 다시 조회한다")
+    void markBannedAddsToFilter() {
+        BanStatusCache cache = startedCache(List.of());
+
+        assertThat(cache.isBanned(9L, id -> true)).isFalse();
+        cache.markBanned(9L);
+        assertThat(cache.isBanned(9L, id -> true)).isTrue();
+    }
+
+    @Test
+    @DisplayName("임시 밴 인덱스에 있는 유저는 필터에 포함된다")
+    void tempBannedUsersFromIndexAreInFilter() {
+        BanStatusCache cache = startedCache(List.of(), Set.of("11"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.isBanned(11L, id -> { loads.incrementAndGet(); return true; })).isTrue();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("원본 조회 도중 밴이 적용되면 조회 결과(밴 아님)를 캐시하지 않는다")
+    void staleLoadIsNotCachedWhenBannedMeanwhile() {
+        BanStatusCache cache = startedCache(List.of(7L));
+
+        // 조회 도중 다른 스레드에서 밴 적용
+        assertThat(cache.isBanned(7L, id -> { cache.markBanned(7L); return false; })).isFalse();
+        assertThat(cache.isBanned(7L, id -> true)).isTrue();
+    }
+
+    private BanStatusCache startedCache(List<Long> bannedIds) {
+        return startedCache(bannedIds, Set.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private BanStatusCache startedCache(List<Long> bannedIds, Set<String> tempBanned) {
+        UserRepository userRepository = mock(UserRepository.class);
+        given(userRepository.findIdsByUserStatus(UserStatus.BAN)).willReturn(bannedIds);
+
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        Cursor<String> cursor = mock(Cursor.class);
+        given(cursor.hasNext()).willReturn(false);
+        given(redisTemplate.scan(any(ScanOptions.class))).willReturn(cursor);
+        ZSetOperations<String, String> zSetOps = mock(ZSetOperations.class);
+        given(redisTemplate.opsForZSet()).willReturn(zSetOps);
+        given(zSetOps.rangeByScore(eq(BanStatusCache.TEMP_BAN_INDEX_KEY), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .willReturn(tempBanned);
+
+        BanStatusCache cache = new BanStatusCache(
+                userRepository, redisTemplate, mock(RedisMessageListenerContainer.class),
+                mock(ScheduledExecutorService.class), 5000, 1000, 60000, 1000
+        );
+        cache.start();
+        cache.rebuild(); // 스케줄러는 mock -> 첫 재구성을 직접 실행
+        return cache;
+    }
+}
@@ -0,0 +1,76 @@
+package com.dy.minichat.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+class ChatMembershipIndexTest {
+
+    private SetOperations<String, String> setOperations;
+    private ChatMembershipIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        given(redisTemplate.opsForSet()).willReturn(setOperations);
+
+        index = new ChatMembershipIndex(redisTemplate, mock(RedisMessageListenerContainer.class));
+    }
+
+    @Test
+    @DisplayName("최초 조회 시에만 SMEMBERS를 호출하고 이후에는 로컬 인덱스를 사용한다")
+    void loadOnceThenServeLocally() {
+        given(setOperations.members("chatId:1:userId")).willReturn(Set.of("30", "10", "20"));
+
+        long[] first = index.getMembers(1L);
+        long[] second = index.getMembers(1L);
+
+        assertThat(first).containsExactly(10L, 20L, 30L);
+        assertThat(second).isSameAs(first);
+        then(setOperations).should(times(1)).members(anyString());
+    }
+
+    @Test
+    @DisplayName("입장/퇴장 이벤트는 적재된 방의 멤버 배열에 반영된다")
+    void applyJoinAndLeave() {
+        given(setOperations.members("chatId:1:userId")).willReturn(Set.of("10", "30"));
+        index.getMembers(1L);
+
+        index.join(1L, 20L);
+        assertThat(index.getMembers(1L)).containsExactly(10L, 20L, 30L);
+
+        index.leave(1L, 10L);
+        assertThat(index.getMembers(1L)).containsExactly(20L, 30L);
+    }
+
+    @Test
+    @DisplayName("적재 도중 입장 이벤트가 들어오면 읽은 값을 반환하되 다음 조회 때 다시 적재한다")
+    void reloadWhenEventArrivesDuringLoad() {
+        given(setOperations.members("chatId:1:userId"))
+                .willAnswer(invocation -> {
+                    // SMEMBERS 응답 전에 다른 노드의 입장 이벤트가 반영된 상황
+                    index.join(1L, 20L);
+                    return Set.of("10");
+                })
+                .willReturn(Set.of("10", "20"));
+
+        assertThat(index.getMembers(1L)).containsExactly(10L);
+        assertThat(index.getMembers(1L)).containsExactly(10L, 20L);
+        assertThat(index.getMembers(1L)).containsExactly(10L, 20L);
+        then(setOperations).should(times(2)).members(anyString());
+    }
+}
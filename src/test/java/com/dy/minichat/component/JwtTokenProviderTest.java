@@ -2,17 +2,27 @@ package com.dy.minichat.component;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
+
 class JwtTokenProviderTest {
 
+    private static final String BASE64_KEY = "T7JR6jkSh5ycDLtDRsvNm+r1Z+2qeeh4k8db8+zRUfar9DkOUq/QMJw3Cb+XxromuMsOVtBaTMKHYfXjVxEGww==";
+
     private JwtTokenProvider jwtTokenProvider;
 
     @BeforeEach
     void setUp() {
-        String base64Key = "T7JR6jkSh5ycDLtDRsvNm+r1Z+2qeeh4k8db8+zRUfar9DkOUq/QMJw3Cb+XxromuMsOVtBaTMKHYfXjVxEGww==";
-        jwtTokenProvider = new JwtTokenProvider(base64Key);
+        jwtTokenProvider = new JwtTokenProvider(BASE64_KEY);
     }
 
     @Test
@@ -65,4 +75,47 @@ class JwtTokenProviderTest {
         System.out.println("-------> invalidTokenTest");
         // when & then
         assertFalse(jwtTokenProvider.validateToken(invalidToken), "잘못된 토큰이 검증됨"); }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("같은 토큰은 1회만 캐시되고, 반환된 Claims를 수정해도 캐시에는 영향이 없다")
+    void parseClaimsIsCachedAndCopied() {
+        String token = jwtTokenProvider.generateAccessToken(789L);
+
+        Claims first = jwtTokenProvider.parseClaims(token);
+        first.setSubject("999");
+        Claims second = jwtTokenProvider.parseClaims(token);
+
+        assertEquals(1, jwtTokenProvider.cachedClaimsCount());
+        assertNotSame(first, second);
+        assertEquals("789", second.getSubject(), "캐시된 Claims가 변경됨");
+        assertEquals(789L, jwtTokenProvider.getUserIdFromToken(token));
+    }
+
+    @Test
+    @DisplayName("유효한 토큰이 캐시되어 있어도 서명이 변조된 토큰은 통과하지 않는다")
+    void tamperedTokenIsRejectedEvenWhenOriginalCached() {
+        String token = jwtTokenProvider.generateAccessToken(1L);
+        jwtTokenProvider.parseClaims(token);
+
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char replaced = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + replaced + token.substring(signatureStart + 1);
+
+        assertThrows(JwtException.class, () -> jwtTokenProvider.parseClaims(tampered));
+        assertFalse(jwtTokenProvider.validateToken(tampered));
+    }
+
+    @Test
+    @DisplayName("만료된 토큰은 ExpiredJwtException으로 거부된다")
+    void expiredTokenIsRejected() {
+        String expired = Jwts.builder()
+                .setSubject("1")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120_000L))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(BASE64_KEY)))
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtTokenProvider.parseClaims(expired));
+        assertFalse(jwtTokenProvider.validateToken(expired));
+    }
+}
@@ -0,0 +1,97 @@
+package com.dy.minichat.component;
+
+import com.dy.minichat.property.WebSocketOutboundProperties;
+import com.dy.minichat.property.WebSocketOutboundProperties.OverflowPolicy;
+import com.dy.minichat.service.UndeliveredMessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.*;
+
+class OutboundMessageDispatcherTest {
+
+    private WebSocketOutboundProperties properties;
+    private List<Runnable> pendingTasks;
+    private OutboundMessageDispatcher dispatcher;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WebSocketOutboundProperties();
+        pendingTasks = new ArrayList<>();
+        // 드레인 태스크를 바로 실행하지 않고 모아뒀다가 테스트에서 직접 실행
+        dispatcher = new OutboundMessageDispatcher(
+                properties, mock(UndeliveredMessageService.class), pendingTasks::add, Runnable::run
+        );
+
+        session = mock(WebSocketSession.class);
+        given(session.getId()).willReturn("session-1");
+        given(session.isOpen()).willReturn(true);
+        given(session.getAttributes()).willReturn(new HashMap<>());
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    @DisplayName("같은 세션에 대한 드레인은 하나만 예약되고, 적재 순서대로 전송된다")
+    void sendInOrderWithSingleWriter() throws Exception {
+        TextMessage first = new TextMessage("1");
+        TextMessage second = new TextMessage("2");
+
+        dispatcher.send(session, first, null);
+        dispatcher.send(session, second, null);
+
+        // 두 번 적재해도 드레인 태스크는 1개
+        assertThat(pendingTasks).hasSize(1);
+        runPendingTasks();
+
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(first);
+        inOrder.verify(session).sendMessage(second);
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST - 큐가 가득 차면 가장 오래된 프레임을 버린다")
+    void dropOldestOnOverflow() throws Exception {
+        properties.setCapacity(1);
+        properties.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        TextMessage oldest = new TextMessage("old");
+        TextMessage newest = new TextMessage("new");
+
+        dispatcher.send(session, oldest, null);
+        dispatcher.send(session, newest, null);
+        runPendingTasks();
+
+        then(session).should(never()).sendMessage(oldest);
+        then(session).should().sendMessage(newest);
+    }
+
+    @Test
+    @DisplayName("CLOSE_SESSION - 큐가 가득 차면 느린 소비자 세션을 종료한다")
+    void closeSlowConsumerOnOverflow() throws Exception {
+        properties.setCapacity(1);
+        properties.setOverflowPolicy(OverflowPolicy.CLOSE_SESSION);
+
+        dispatcher.send(session, new TextMessage("1"), null);
+        dispatcher.send(session, new TextMessage("2"), null);
+
+        then(session).should().close(any(CloseStatus.class));
+    }
+}
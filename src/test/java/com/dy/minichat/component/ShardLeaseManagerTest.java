@@ -0,0 +1,70 @@
+package com.dy.minichat.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ShardLeaseManagerTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisScript<Long> acquireScript = mock(RedisScript.class);
+    @SuppressWarnings("unchecked")
+    private final RedisScript<Long> releaseScript = mock(RedisScript.class);
+
+    @Test
+    @DisplayName("살아 있는 노드들이 샤드를 겹치지 않게 나눠 맡고, 모든 샤드에 소유 노드가 있다")
+    void shardsArePartitionedAcrossLiveNodes() {
+        Set<String> nodes = Set.of("server-a", "server-b", "server-c");
+        ShardLeaseManager a = manager("server-a", nodes);
+        ShardLeaseManager b = manager("server-b", nodes);
+        ShardLeaseManager c = manager("server-c", nodes);
+
+        int[] owned = new int[3];
+        for (int shard = 0; shard < 64; shard++) {
+            int owners = 0;
+            if (a.owns("job", shard)) { owners++; owned[0]++; }
+            if (b.owns("job", shard)) { owners++; owned[1]++; }
+            if (c.owns("job", shard)) { owners++; owned[2]++; }
+            assertThat(owners).as("shard %d", shard).isEqualTo(1);
+        }
+        // 한 노드에 몰리지 않음
+        assertThat(owned).allSatisfy(count -> assertThat(count).isGreaterThan(5));
+    }
+
+    @Test
+    @DisplayName("다른 노드가 임대를 보유 중이면 선호 노드라도 작업하지 않는다")
+    void doesNotOwnWhileLeaseHeldElsewhere() {
+        NodeRegistry registry = registry("server-a", Set.of("server-a"));
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        given(redisTemplate.execute(eq(acquireScript), anyList(), any(), any())).willReturn(0L);
+
+        ShardLeaseManager manager = new ShardLeaseManager(redisTemplate, acquireScript, releaseScript, registry, 10000);
+
+        assertThat(manager.owns("job", 0)).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ShardLeaseManager manager(String self, Set<String> nodes) {
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        given(redisTemplate.execute(eq(acquireScript), anyList(), any(), any())).willReturn(1L);
+        return new ShardLeaseManager(redisTemplate, acquireScript, releaseScript, registry(self, nodes), 10000);
+    }
+
+    private NodeRegistry registry(String self, Set<String> nodes) {
+        NodeRegistry registry = mock(NodeRegistry.class);
+        given(registry.getServerIdentifier()).willReturn(self);
+        given(registry.liveServerIds()).willReturn(nodes);
+        return registry;
+    }
+}
@@ -0,0 +1,70 @@
+package com.dy.minichat.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SnowflakeNodeLeaseTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final RedisScript<Long> acquireScript = mock(RedisScript.class);
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+    @Test
+    @DisplayName("다른 노드가 노드 ID를 가져가면 발급을 차단하고, 새 ID를 임대하면 그 ID로 전환한다")
+    @SuppressWarnings("unchecked")
+    void fencesWhenLeaseLostAndSwitchesToNewId() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.increment("snowflake:node:cursor")).willReturn(7L, 7L);
+
+        // 기동: 7 획득 / 하트비트: 7은 다른 노드 소유, 8 획득
+        given(redisTemplate.execute(eq(acquireScript), anyList(), any(), any())).willReturn(1L, 0L, 0L, 1L);
+
+        SnowflakeNodeLease lease = new SnowflakeNodeLease(redisTemplate, acquireScript, scheduler, "server-a", 30000, 100);
+        lease.acquire();
+        assertThat(lease.currentNodeId()).isEqualTo(7L);
+
+        ArgumentCaptor<Runnable> heartbeat = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleWithFixedDelay(heartbeat.capture(), anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        heartbeat.getValue().run();
+
+        assertThat(lease.currentNodeId()).isEqualTo(8L);
+    }
+
+    @Test
+    @DisplayName("갱신하지 못한 채 유효 시각이 지나면 발급을 차단한다")
+    @SuppressWarnings("unchecked")
+    void fencesWhenRenewalsMissed() throws Exception {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.increment("snowflake:node:cursor")).willReturn(0L);
+        given(redisTemplate.execute(eq(acquireScript), anyList(), any(), any())).willReturn(1L);
+
+        // TTL 2.5초 - 여유(0 + 1초)를 빼면 1.5초 동안만 유효
+        SnowflakeNodeLease lease = new SnowflakeNodeLease(redisTemplate, acquireScript, scheduler, "server-a", 2500, 0);
+        lease.acquire();
+        assertThat(lease.currentNodeId()).isZero();
+
+        Thread.sleep(1600);
+        assertThatThrownBy(lease::currentNodeId).isInstanceOf(IllegalStateException.class);
+    }
+}
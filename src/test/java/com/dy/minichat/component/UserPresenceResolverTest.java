@@ -0,0 +1,56 @@
+package com.dy.minichat.component;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UserPresenceResolverTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+
+    private final UserPresenceResolver resolver =
+            new UserPresenceResolver(redisTemplate, mock(RedisMessageListenerContainer.class), 60_000L, 100);
+
+    @Test
+    @DisplayName("조회 결과는 캐시되어 다음 조회에서 Redis를 다시 읽지 않는다")
+    void cachesResolvedPresence() {
+        given(redisTemplate.opsForValue()).willReturn(valueOps);
+        given(valueOps.multiGet(anyList())).willReturn(Arrays.asList("node-a", null));
+
+        assertThat(resolver.resolve(List.of(1L, 2L))).containsOnlyKeys(1L).containsEntry(1L, "node-a");
+        assertThat(resolver.resolve(List.of(1L, 2L))).containsOnlyKeys(1L);
+
+        verify(valueOps, times(1)).multiGet(anyList());
+    }
+
+    @Test
+    @DisplayName("MGET 도중 접속 상태가 바뀌면 이전 값을 캐시하지 않는다")
+    void skipsCachingWhenInvalidatedDuringLookup() {
+        given(redisTemplate.opsForValue()).willReturn(valueOps);
+        given(valueOps.multiGet(anyList()))
+                .willAnswer(invocation -> {
+                    // 응답이 오기 전에 다른 노드로 재접속
+                    resolver.markChanged(1L);
+                    return List.of("node-a");
+                })
+                .willReturn(List.of("node-b"));
+
+        assertThat(resolver.resolve(List.of(1L))).containsEntry(1L, "node-a");
+        assertThat(resolver.resolve(List.of(1L))).containsEntry(1L, "node-b");
+    }
+}
@@ -0,0 +1,58 @@
+package com.dy.minichat.global.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+
+    @Test
+    @DisplayName("만료된 값은 반환하지 않는다")
+    void expiredValueIsMiss() {
+        NearCache<String, String> cache = new NearCache<>(10, now::get);
+        cache.put("a", "v", 1_500L);
+
+        assertThat(cache.get("a")).isEqualTo("v");
+        now.set(1_500L);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("가득 차면 전체를 비우지 않고 만료된 항목부터 일부만 제거한다")
+    void evictsSliceInsteadOfClearing() {
+        NearCache<Integer, String> cache = new NearCache<>(64, now::get);
+        for (int i = 0; i < 4; i++) cache.put(i, "old", 1_001L);
+        for (int i = 4; i < 64; i++) cache.put(i, "live", 10_000L);
+        now.set(2_000L);
+
+        cache.put(100, "new", 10_000L);
+
+        // 제거 목표 4개(64 / 16) = 만료된 4개
+        assertThat(cache.size()).isEqualTo(61);
+        for (int i = 4; i < 64; i++) assertThat(cache.get(i)).isEqualTo("live");
+        assertThat(cache.get(100)).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("조회 도중 무효화되면 조회 결과를 캐시하지 않는다")
+    void loadIsDroppedWhenInvalidatedMeanwhile() {
+        NearCache<String, Boolean> cache = new NearCache<>(10, now::get);
+
+        NearCache.Loading<Boolean> loading = cache.beginLoad("k");
+        assertThat(cache.get("k")).isNull();
+        cache.invalidate("k");
+
+        assertThat(cache.completeLoad("k", loading, true, 10_000L)).isFalse();
+        assertThat(cache.get("k")).isNull();
+
+        NearCache.Loading<Boolean> next = cache.beginLoad("k");
+        assertThat(cache.completeLoad("k", next, false, 10_000L)).isTrue();
+        assertThat(cache.get("k")).isFalse();
+    }
+}
@@ -0,0 +1,126 @@
+package com.dy.minichat.global.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeTest {
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 발급해도 ID가 중복되지 않는다")
+    void concurrentIdsAreUnique() throws Exception {
+        Snowflake snowflake = new Snowflake(1L);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8, perThread = 20_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) ids.add(snowflake.nextId());
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("같은 ms의 시퀀스를 모두 쓰면 대기하지 않고 다음 ms를 빌리며, 노드 ID 비트를 침범하지 않는다")
+    void borrowsNextMillisWhenSequenceExhausted() {
+        // 시계는 멈춰 있음 - 대기했다면 테스트가 끝나지 않음
+        Snowflake snowflake = new Snowflake(5L, 10L, () -> 1735689600000L + 1_000L);
+
+        snowflake.nextBlock(4096);
+        long id = snowflake.nextId();
+
+        long[] parts = snowflake.parse(id);
+        assertThat(parts[0]).isEqualTo(1735689600000L + 1_001L);
+        assertThat(parts[1]).isEqualTo(5L);
+        assertThat(parts[2]).isZero();
+        assertThat(snowflake.getBorrowedCount()).isEqualTo(1L);
+        assertThat(snowflake.getDriftMs()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("빌림 한도를 넘으면 시계가 따라올 때까지 기다린다")
+    void waitsForClockWhenDriftExceeded() {
+        AtomicLong now = new AtomicLong(1735689600000L + 1_000L);
+        Snowflake snowflake = new Snowflake(5L, 0L, now::get);
+
+        snowflake.nextBlock(4096);
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            now.incrementAndGet();
+        }).start();
+
+        long[] parts = snowflake.parse(snowflake.nextId());
+        assertThat(parts[0]).isEqualTo(1735689600000L + 1_001L);
+        assertThat(snowflake.getBorrowedCount()).isZero();
+        assertThat(snowflake.getStallCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("시계 역행 중 시퀀스를 다 쓰면 역행 폭만큼 기다리지 않고 maxWaitMs 후 발급에 실패한다")
+    void failsWhenWaitExceedsMaxWait() {
+        AtomicLong now = new AtomicLong(1735689600000L + 10_000L);
+        Snowflake snowflake = new Snowflake(1L, 0L, 20L, now::get);
+
+        snowflake.nextId();
+        now.addAndGet(-5_000L);
+        snowflake.nextBlock(4095);
+
+        assertThatThrownBy(snowflake::nextId).isInstanceOf(IllegalStateException.class);
+        assertThat(snowflake.getStallTimeoutCount()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("시계가 역행해도 마지막 관측 시각 기준으로 계속 증가하는 ID를 발급한다")
+    void keepsIncreasingOnClockRollback() {
+        AtomicLong now = new AtomicLong(1735689600000L + 10_000L);
+        Snowflake snowflake = new Snowflake(1L, 10L, now::get);
+
+        long before = snowflake.nextId();
+        now.addAndGet(-5_000L);
+        long after = snowflake.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat(snowflake.parse(after)[0]).isEqualTo(1735689600000L + 10_000L);
+        assertThat(snowflake.getRollbackCount()).isEqualTo(1L);
+        assertThat(snowflake.getIssuedCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("블록 예약은 연속된 ID를 돌려주고, 다음 발급은 블록 뒤에서 이어진다")
+    void blockIsContiguous() {
+        Snowflake snowflake = new Snowflake(1L, 10L, () -> 1735689600000L + 5_000L);
+
+        IdBlock block = snowflake.nextBlock(3);
+        long first = block.next();
+        assertThat(block.next()).isEqualTo(first + 1);
+        assertThat(block.next()).isEqualTo(first + 2);
+        assertThat(block.hasNext()).isFalse();
+
+        assertThat(snowflake.nextId()).isEqualTo(first + 3);
+    }
+}
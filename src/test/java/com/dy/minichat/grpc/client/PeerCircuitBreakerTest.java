@@ -0,0 +1,43 @@
+package com.dy.minichat.grpc.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeerCircuitBreakerTest {
+
+    @Test
+    @DisplayName("연속 실패가 임계치에 도달하면 OPEN, 성공이 끼면 카운트가 초기화된다")
+    void opensAfterConsecutiveFailures() {
+        PeerCircuitBreaker breaker = new PeerCircuitBreaker(3, 1000, 30000);
+
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        breaker.recordSuccess();
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        assertThat(breaker.isClosed()).isTrue();
+
+        breaker.recordFailure(0);
+        assertThat(breaker.getState()).isEqualTo(PeerCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("backoff 경과 후에만 HALF_OPEN 전환, 프로브 실패 시 backoff가 두 배로 늘어난다")
+    void halfOpenAfterBackoffWithExponentialRetry() {
+        PeerCircuitBreaker breaker = new PeerCircuitBreaker(1, 1000, 30000);
+        breaker.recordFailure(0);
+
+        assertThat(breaker.tryHalfOpen(999)).isFalse();
+        assertThat(breaker.tryHalfOpen(1000)).isTrue();
+
+        // 프로브 실패 -> 2000ms 동안 OPEN
+        breaker.recordFailure(1000);
+        assertThat(breaker.tryHalfOpen(2999)).isFalse();
+        assertThat(breaker.tryHalfOpen(3000)).isTrue();
+
+        breaker.recordSuccess();
+        assertThat(breaker.isClosed()).isTrue();
+    }
+}
@@ -0,0 +1,121 @@
+package com.dy.minichat.service;
+
+import com.dy.minichat.component.ChatMemberCache;
+import com.dy.minichat.component.LastReadIndex;
+import com.dy.minichat.component.RecentMessageCache;
+import com.dy.minichat.config.id.MessageIdGenerator;
+import com.dy.minichat.dto.request.LastReadMessageRequestDTO;
+import com.dy.minichat.dto.request.MessageRequestDTO;
+import com.dy.minichat.entity.Chat;
+import com.dy.minichat.entity.Message;
+import com.dy.minichat.entity.User;
+import com.dy.minichat.repository.ChatRepository;
+import com.dy.minichat.repository.MessageRepository;
+import com.dy.minichat.repository.UserChatRepository;
+import com.dy.minichat.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @InjectMocks
+    private MessageService messageService;
+
+    @Mock
+    private UserChatUpdateService userChatUpdateService;
+    @Mock
+    private ChatRepository chatRepository;
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserChatRepository userChatRepository;
+    @Mock
+    private MessageIdGenerator messageIdGenerator;
+    @Mock
+    private RecentMessageCache recentMessageCache;
+    @Mock
+    private LastReadIndex lastReadIndex;
+    @Mock
+    private ChatMemberCache chatMemberCache;
+
+    @Test
+    @DisplayName("메시지 저장 시 발신자/채팅방을 조회하지 않고 프록시 참조만 사용한다 (DB 왕복 = INSERT 1회)")
+    void createMessageUsesReferencesOnly() {
+        // given
+        User senderRef = new User();
+        senderRef.setId(1L);
+        Chat chatRef = new Chat();
+        chatRef.setId(10L);
+        given(userRepository.getReferenceById(1L)).willReturn(senderRef);
+        given(chatRepository.getReferenceById(10L)).willReturn(chatRef);
+        given(messageRepository.saveAndFlush(any(Message.class))).willAnswer(inv -> inv.getArgument(0));
+
+        // when
+        messageService.createMessage(new MessageRequestDTO("hello"), 1L, 10L, 100L);
+
+        // then - 기존 경로의 SELECT 2회(findById)가 사라짐
+        then(userRepository).should(never()).findById(anyLong());
+        then(chatRepository).should(never()).findById(anyLong());
+
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        then(messageRepository).should(times(1)).saveAndFlush(captor.capture());
+        Message saved = captor.getValue();
+        assertThat(saved.getId()).isEqualTo(100L);
+        assertThat(saved.getUser()).isSameAs(senderRef);
+        assertThat(saved.getChat()).isSameAs(chatRef);
+        // 신규 엔티티로 인식 -> merge(사전 SELECT)가 아닌 persist
+        assertThat(saved.isNew()).isTrue();
+
+        then(userChatUpdateService).should().updateUserChatOnNewMessage(10L, saved);
+    }
+
+    @Test
+    @DisplayName("읽음 갱신은 메시지를 조회하지 않고 Snowflake 시각 + 참여 캐시로 검증 후 Redis만 갱신한다")
+    void updateLastReadMessageSkipsMessageLookup() {
+        // given
+        long now = System.currentTimeMillis();
+        given(messageIdGenerator.timestampOf(10L)).willReturn(now - 60_000L);   // 채팅방 생성 시각
+        given(messageIdGenerator.timestampOf(100L)).willReturn(now - 1_000L);   // 메시지 발급 시각
+        given(chatMemberCache.isMember(10L, 1L)).willReturn(true);
+        given(lastReadIndex.update(10L, 1L, 100L)).willReturn(true);
+
+        // when
+        boolean updated = messageService.updateLastReadMessage(new LastReadMessageRequestDTO(100L), 1L, 10L);
+
+        // then
+        assertThat(updated).isTrue();
+        then(messageRepository).should(never()).findById(anyLong());
+        then(lastReadIndex).should(times(1)).update(10L, 1L, 100L);
+    }
+
+    @Test
+    @DisplayName("채팅방 생성 이전 시각의 메시지 ID는 Redis를 갱신하지 않고 거부한다")
+    void updateLastReadMessageRejectsIdOlderThanChat() {
+        // given
+        long now = System.currentTimeMillis();
+        given(messageIdGenerator.timestampOf(10L)).willReturn(now - 1_000L);
+        given(messageIdGenerator.timestampOf(100L)).willReturn(now - 60_000L);
+
+        // when & then
+        assertThatThrownBy(() -> messageService.updateLastReadMessage(new LastReadMessageRequestDTO(100L), 1L, 10L))
+                .isInstanceOf(IllegalArgumentException.class);
+        then(lastReadIndex).should(never()).update(anyLong(), anyLong(), anyLong());
+    }
+}